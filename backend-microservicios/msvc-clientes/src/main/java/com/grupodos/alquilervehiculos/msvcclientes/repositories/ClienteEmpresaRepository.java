@@ -2,10 +2,17 @@ package com.grupodos.alquilervehiculos.msvcclientes.repositories;
 
 import com.grupodos.alquilervehiculos.msvcclientes.entities.ClienteEmpresa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface ClienteEmpresaRepository extends JpaRepository<ClienteEmpresa, UUID> {
     boolean existsByRuc(String ruc);
     boolean existsByRucAndIdNot(String ruc, UUID id);
+
+    @Query("SELECT e FROM ClienteEmpresa e LEFT JOIN FETCH e.representante WHERE e.id IN :ids")
+    List<ClienteEmpresa> findConRepresentanteByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -3,9 +3,12 @@ package com.grupodos.alquilervehiculos.msvcclientes.repositories;
 import com.grupodos.alquilervehiculos.msvcclientes.entities.ClienteNatural;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface ClienteNaturalRepository extends JpaRepository<ClienteNatural, UUID> {
     boolean existsByNumeroDocumento(String numeroDocumento);
     boolean existsByNumeroDocumentoAndIdNot(String numeroDocumento, UUID id);
+    List<ClienteNatural> findByIdIn(Collection<UUID> ids);
 }
@@ -2,6 +2,7 @@ package com.grupodos.alquilervehiculos.msvcclientes.services;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.grupodos.alquilervehiculos.msvcclientes.dto.*;
 import com.grupodos.alquilervehiculos.msvcclientes.entities.Cliente;
 import com.grupodos.alquilervehiculos.msvcclientes.entities.ClienteEmpresa;
@@ -21,15 +22,21 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ClienteServiceImpl implements ClienteService {
 
+    // Mantiene la cláusula IN por debajo del límite práctico de parámetros por sentencia
+    private static final int TAMANIO_LOTE_REPORTES = 500;
+
     private final ClienteRepository clienteRepository;
     private final ClienteNaturalRepository clienteNaturalRepository;
     private final ClienteEmpresaRepository clienteEmpresaRepository;
@@ -291,46 +298,9 @@ public class ClienteServiceImpl implements ClienteService {
                 .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
 
         if (c.getTipoCliente() == TipoCliente.NATURAL) {
-            ClienteNatural cn = (ClienteNatural) c;
-            return new ClienteReporteDto(
-                    cn.getId(),
-                    "NATURAL",
-                    cn.getNombre(),
-                    cn.getApellido(),
-                    cn.getTipoDocumento(),
-                    cn.getNumeroDocumento(),
-                    null,
-                    null,
-                    cn.getCorreo(),
-                    cn.getTelefono(),
-                    null
-            );
+            return mapearClienteNaturalReporte((ClienteNatural) c);
         } else {
-            ClienteEmpresa ce = (ClienteEmpresa) c;
-            Representante r = ce.getRepresentante();
-            RepresentanteDto repDto = r != null ? new RepresentanteDto(
-                    r.getNombre(),
-                    r.getApellido(),
-                    r.getTipoDocumento(),
-                    r.getNumeroDocumento(),
-                    r.getCargo(),
-                    r.getCorreo(),
-                    r.getTelefono()
-            ) : null;
-
-            return new ClienteReporteDto(
-                    ce.getId(),
-                    "EMPRESA",
-                    null,
-                    null,
-                    null,
-                    null,
-                    ce.getRazonSocial(),
-                    ce.getRuc(),
-                    ce.getCorreo(),
-                    ce.getTelefono(),
-                    repDto
-            );
+            return mapearClienteEmpresaReporte((ClienteEmpresa) c);
         }
     }
 
@@ -339,16 +309,72 @@ public class ClienteServiceImpl implements ClienteService {
     public List<ClienteReporteDto> obtenerClientesParaReportes(List<UUID> ids) {
         log.info("Obteniendo {} clientes para reportes por IDs", ids.size());
 
-        return ids.stream()
-                .map(id -> {
-                    try {
-                        return obtenerClienteParaReporte(id);
-                    } catch (Exception e) {
-                        log.warn("Cliente no encontrado con ID: {}, usando valores por defecto", id);
-                        return crearClienteReportePorDefecto(id);
-                    }
-                })
-                .collect(Collectors.toList());
+        // Dos consultas por lote (naturales y empresas con su representante) en lugar de una por ID
+        // Los IDs nulos no se consultan; más abajo reciben los valores por defecto como los no encontrados
+        List<UUID> distintos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<UUID, ClienteReporteDto> encontrados = new HashMap<>(ids.size() * 2);
+        for (List<UUID> lote : Lists.partition(distintos, TAMANIO_LOTE_REPORTES)) {
+            for (ClienteNatural cn : clienteNaturalRepository.findByIdIn(lote)) {
+                encontrados.put(cn.getId(), mapearClienteNaturalReporte(cn));
+            }
+            for (ClienteEmpresa ce : clienteEmpresaRepository.findConRepresentanteByIdIn(lote)) {
+                encontrados.put(ce.getId(), mapearClienteEmpresaReporte(ce));
+            }
+        }
+
+        List<ClienteReporteDto> resultado = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            ClienteReporteDto dto = encontrados.get(id);
+            if (dto == null) {
+                log.warn("Cliente no encontrado con ID: {}, usando valores por defecto", id);
+                dto = crearClienteReportePorDefecto(id);
+            }
+            resultado.add(dto);
+        }
+        return resultado;
+    }
+
+    private ClienteReporteDto mapearClienteNaturalReporte(ClienteNatural cn) {
+        return new ClienteReporteDto(
+                cn.getId(),
+                "NATURAL",
+                cn.getNombre(),
+                cn.getApellido(),
+                cn.getTipoDocumento(),
+                cn.getNumeroDocumento(),
+                null,
+                null,
+                cn.getCorreo(),
+                cn.getTelefono(),
+                null
+        );
+    }
+
+    private ClienteReporteDto mapearClienteEmpresaReporte(ClienteEmpresa ce) {
+        Representante r = ce.getRepresentante();
+        RepresentanteDto repDto = r != null ? new RepresentanteDto(
+                r.getNombre(),
+                r.getApellido(),
+                r.getTipoDocumento(),
+                r.getNumeroDocumento(),
+                r.getCargo(),
+                r.getCorreo(),
+                r.getTelefono()
+        ) : null;
+
+        return new ClienteReporteDto(
+                ce.getId(),
+                "EMPRESA",
+                null,
+                null,
+                null,
+                null,
+                ce.getRazonSocial(),
+                ce.getRuc(),
+                ce.getCorreo(),
+                ce.getTelefono(),
+                repDto
+        );
     }
 
     private ClienteReporteDto crearClienteReportePorDefecto(UUID id) {
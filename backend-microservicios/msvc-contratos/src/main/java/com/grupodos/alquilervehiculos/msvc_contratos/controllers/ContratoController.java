@@ -1,5 +1,6 @@
 package com.grupodos.alquilervehiculos.msvc_contratos.controllers;
 
+import com.grupodos.alquilervehiculos.msvc_contratos.dto.ContratoReporteDto;
 import com.grupodos.alquilervehiculos.msvc_contratos.dto.ContratoRequestDto;
 import com.grupodos.alquilervehiculos.msvc_contratos.dto.ContratoResponseDto;
 import com.grupodos.alquilervehiculos.msvc_contratos.dto.RangoFechasRequest;
@@ -72,4 +73,13 @@ public class ContratoController {
 
         return ResponseEntity.ok(contratos);
     }
+
+    // Feed liviano para msvc-reportes: sin datos de cliente ni vehículo resueltos remotamente
+    @PostMapping("/reportes/rango-fechas")
+    public ResponseEntity<List<ContratoReporteDto>> obtenerContratosParaReportes(
+            @Valid @RequestBody RangoFechasRequest request) {
+
+        return ResponseEntity.ok(contratoService
+                .obtenerContratosParaReportes(request.fechaInicio(), request.fechaFin()));
+    }
 }
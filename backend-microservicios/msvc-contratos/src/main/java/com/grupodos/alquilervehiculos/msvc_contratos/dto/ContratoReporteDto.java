@@ -1,20 +1,19 @@
-package com.grupodos.alquilervehiculos.msvcreportes.dto;
+package com.grupodos.alquilervehiculos.msvc_contratos.dto;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
-public record ContratoPagoDto(
+public record ContratoReporteDto(
         UUID id,
         String codigoContrato,
-        ClienteDto cliente,
-        List<DetalleContratoDto> detalles,
+        UUID idCliente,
+        List<DetalleContratoReporteDto> detalles,
         LocalDate fechaInicio,
         LocalDate fechaFin,
         Integer diasTotales,
         Double montoTotal,
         String estado,
-        String observaciones,
         LocalDateTime fechaCreacion
 ) {}
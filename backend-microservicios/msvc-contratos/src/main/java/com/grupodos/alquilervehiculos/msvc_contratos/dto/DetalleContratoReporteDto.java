@@ -0,0 +1,11 @@
+package com.grupodos.alquilervehiculos.msvc_contratos.dto;
+
+import java.util.UUID;
+
+public record DetalleContratoReporteDto(
+        UUID idDetalle,
+        UUID idVehiculo,
+        String placaVehiculo,
+        Integer diasAlquiler,
+        Double subtotal
+) {}
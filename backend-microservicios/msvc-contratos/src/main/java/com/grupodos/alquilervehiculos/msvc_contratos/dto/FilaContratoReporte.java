@@ -0,0 +1,23 @@
+package com.grupodos.alquilervehiculos.msvc_contratos.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Una fila por detalle (o una con detalle nulo si el contrato no tiene detalles)
+public record FilaContratoReporte(
+        UUID id,
+        String codigoContrato,
+        UUID idCliente,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        Integer diasTotales,
+        Double montoTotal,
+        String estado,
+        LocalDateTime fechaCreacion,
+        UUID idDetalle,
+        UUID idVehiculo,
+        String placaVehiculo,
+        Integer diasAlquiler,
+        Double subtotal
+) {}
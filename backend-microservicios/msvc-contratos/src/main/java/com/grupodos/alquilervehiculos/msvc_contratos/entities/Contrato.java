@@ -12,7 +12,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "contratos")
+@Table(name = "contratos", indexes = {
+        @Index(name = "idx_contratos_fecha_creacion", columnList = "fecha_creacion")
+})
 public class Contrato {
 
     @Id
@@ -1,10 +1,13 @@
 package com.grupodos.alquilervehiculos.msvc_contratos.repositories;
 
+import com.grupodos.alquilervehiculos.msvc_contratos.dto.FilaContratoReporte;
 import com.grupodos.alquilervehiculos.msvc_contratos.entities.Contrato;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface ContratoRepository extends JpaRepository<Contrato, UUID> {
@@ -16,4 +19,13 @@ public interface ContratoRepository extends JpaRepository<Contrato, UUID> {
         String prefix = "CT-" + year + "-";
         return findMaxNumeroContratoByYear(prefix);
     }
+
+    @Query("SELECT new com.grupodos.alquilervehiculos.msvc_contratos.dto.FilaContratoReporte(" +
+            "c.id, c.codigoContrato, c.idCliente, c.fechaInicio, c.fechaFin, c.diasTotales, c.montoTotal, " +
+            "c.estado, c.fechaCreacion, d.id, d.idVehiculo, d.placaVehiculo, d.diasAlquiler, d.subtotal) " +
+            "FROM Contrato c LEFT JOIN c.detalles d " +
+            "WHERE c.fechaCreacion >= :desde AND c.fechaCreacion < :hasta " +
+            "ORDER BY c.fechaCreacion, c.id")
+    List<FilaContratoReporte> findFilasReporteByFechaCreacion(@Param("desde") LocalDateTime desde,
+                                                              @Param("hasta") LocalDateTime hasta);
 }
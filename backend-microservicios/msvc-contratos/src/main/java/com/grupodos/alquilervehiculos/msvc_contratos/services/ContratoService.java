@@ -15,4 +15,5 @@ public interface ContratoService {
     ContratoResponseDto finalizarContrato(UUID id);
     ContratoResponseDto cancelarContrato(UUID id);
     List<ContratoResponseDto> obtenerContratosPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin);
+    List<ContratoReporteDto> obtenerContratosParaReportes(LocalDate fechaInicio, LocalDate fechaFin);
 }
@@ -18,7 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -341,4 +343,41 @@ public class ContratoServiceImpl implements ContratoService {
                 .map(this::mapToResponse) // Usa tu metodo existente
                 .collect(Collectors.toList());
     }
+
+    // Datos planos para msvc-reportes: una sola consulta y sin llamadas a otros microservicios
+    @Transactional(readOnly = true)
+    @Override
+    public List<ContratoReporteDto> obtenerContratosParaReportes(LocalDate fechaInicio, LocalDate fechaFin) {
+        List<FilaContratoReporte> filas = contratoRepository.findFilasReporteByFechaCreacion(
+                fechaInicio.atStartOfDay(), fechaFin.plusDays(1).atStartOfDay());
+
+        // Las filas llegan ordenadas por contrato; se agrupan conservando ese orden
+        Map<UUID, ContratoReporteDto> contratos = new LinkedHashMap<>();
+        for (FilaContratoReporte fila : filas) {
+            ContratoReporteDto contrato = contratos.computeIfAbsent(fila.id(), id -> new ContratoReporteDto(
+                    fila.id(),
+                    fila.codigoContrato(),
+                    fila.idCliente(),
+                    new ArrayList<>(),
+                    fila.fechaInicio(),
+                    fila.fechaFin(),
+                    fila.diasTotales(),
+                    fila.montoTotal(),
+                    fila.estado(),
+                    fila.fechaCreacion()
+            ));
+
+            if (fila.idDetalle() != null) {
+                contrato.detalles().add(new DetalleContratoReporteDto(
+                        fila.idDetalle(),
+                        fila.idVehiculo(),
+                        fila.placaVehiculo(),
+                        fila.diasAlquiler(),
+                        fila.subtotal()
+                ));
+            }
+        }
+
+        return new ArrayList<>(contratos.values());
+    }
 }
@@ -1,11 +1,12 @@
 package com.grupodos.alquilervehiculos.msvcreportes.clients;
 
+import com.grupodos.alquilervehiculos.msvcreportes.AppConfig;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ComprobanteDto;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ContratoDto;
-import com.grupodos.alquilervehiculos.msvcreportes.dto.ContratoPagoDto;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.RangoFechasRequest;
 import jakarta.validation.Valid;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -20,13 +21,13 @@ public interface ContratoFeignClient {
     @GetMapping("/api/contratos")
     List<ContratoDto> obtenerTodosContratos();
 
-    @PostMapping("/api/contratos/rango-fechas")
+    // Feed plano de msvc-contratos: trae idCliente y los detalles sin resolver cliente ni vehículo
+    @PostMapping(value = "/api/contratos/reportes/rango-fechas",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = AppConfig.APPLICATION_SMILE_VALUE)
     List<ContratoDto> obtenerContratosPorRangoFechas(@RequestBody RangoFechasRequest request);
 
-    @PostMapping("/api/contratos/rango-fechas")
-    List<ContratoPagoDto> obtenerContratosPorRangoFechasPago(@RequestBody RangoFechasRequest request);
-
-    @PostMapping("/api/comprobantes/rango-fechas")
+    @PostMapping(value = "/api/comprobantes/rango-fechas",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = AppConfig.APPLICATION_SMILE_VALUE)
         List<ComprobanteDto> obtenerComprobantesPorRangoFechas(
             @Valid @RequestBody RangoFechasRequest request
     );
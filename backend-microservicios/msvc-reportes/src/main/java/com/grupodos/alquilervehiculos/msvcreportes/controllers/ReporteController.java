@@ -1,16 +1,24 @@
 package com.grupodos.alquilervehiculos.msvcreportes.controllers;
 
+import com.grupodos.alquilervehiculos.msvcreportes.dto.PaginaReporteDto;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteIngresosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteIngresosTrimestralDto;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteRequest;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteUsoVehiculosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.TotalesPagosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.TotalesUsoVehiculosDto;
 import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
 import com.grupodos.alquilervehiculos.msvcreportes.services.*;
+import com.grupodos.alquilervehiculos.msvcreportes.services.cache.EjecucionUnica;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -18,11 +26,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/reportes")
@@ -35,18 +46,27 @@ public class ReporteController {
     private final ReportePagosService reportePagosService;
     private final ReporteUsoVehiculosService reporteUsoVehiculosService;
     private final ReporteIngresosService reporteIngresosService;
-    private final ExcelGeneratorService excelGeneratorService;
+    private final ReporteArchivoService reporteArchivoService;
+    private final ReporteDatosService reporteDatosService;
+    private final CsvGeneratorService csvGeneratorService;
+    private final EjecucionUnica ejecucionUnica;
 
     public ReporteController(ReporteConsultaService  reporteConsultaService,
                              ReportePagosService reportePagosService,
                              ReporteUsoVehiculosService reporteUsoVehiculosService,
                              ReporteIngresosService reporteIngresosService,
-                             ExcelGeneratorService excelGeneratorService) {
+                             ReporteArchivoService reporteArchivoService,
+                             ReporteDatosService reporteDatosService,
+                             CsvGeneratorService csvGeneratorService,
+                             EjecucionUnica ejecucionUnica) {
         this.reporteConsultaService = reporteConsultaService;
         this.reportePagosService = reportePagosService;
         this.reporteUsoVehiculosService = reporteUsoVehiculosService;
         this.reporteIngresosService = reporteIngresosService;
-        this.excelGeneratorService = excelGeneratorService;
+        this.reporteArchivoService = reporteArchivoService;
+        this.reporteDatosService = reporteDatosService;
+        this.csvGeneratorService = csvGeneratorService;
+        this.ejecucionUnica = ejecucionUnica;
     }
 
     @PostMapping("/pagos/excel")
@@ -54,11 +74,8 @@ public class ReporteController {
         try {
             logger.info("Solicitando reporte de pagos en Excel: {} a {}", request.fechaInicio(), request.fechaFin());
 
-            List<ReportePagosDto> datos = reportePagosService.generarReportePagos(
-                    request.fechaInicio(), request.fechaFin());
-
-            byte[] excelBytes = excelGeneratorService.generarReportePagosExcel(datos,
-                    "Reporte de Pagos - " + request.fechaInicio() + " a " + request.fechaFin());
+            byte[] excelBytes = reporteArchivoService.obtenerExcelPagos(
+                    request.fechaInicio(), request.fechaFin(), false);
 
             String filename = String.format("reporte-pagos-%s-a-%s.xlsx",
                     request.fechaInicio().format(DateTimeFormatter.BASIC_ISO_DATE),
@@ -78,11 +95,8 @@ public class ReporteController {
             logger.info("Solicitando reporte de uso de vehículos en Excel: {} a {}",
                     request.fechaInicio(), request.fechaFin());
 
-            List<ReporteUsoVehiculosDto> datos = reporteUsoVehiculosService.generarReporteUsoVehiculos(
-                    request.fechaInicio(), request.fechaFin());
-
-            byte[] excelBytes = excelGeneratorService.generarReporteUsoVehiculosExcel(datos,
-                    "Reporte de Uso de Vehículos - " + request.fechaInicio() + " a " + request.fechaFin());
+            byte[] excelBytes = reporteArchivoService.obtenerExcelUsoVehiculos(
+                    request.fechaInicio(), request.fechaFin(), false);
 
             String filename = String.format("reporte-uso-vehiculos-%s-a-%s.xlsx",
                     request.fechaInicio().format(DateTimeFormatter.BASIC_ISO_DATE),
@@ -101,10 +115,7 @@ public class ReporteController {
         try {
             logger.info("Solicitando reporte de ingresos mensuales en Excel para el año {}", año);
 
-            List<ReporteIngresosDto> datos = reporteIngresosService.generarReporteIngresosMensuales(año);
-
-            byte[] excelBytes = excelGeneratorService.generarReporteIngresosExcel(datos,
-                    "Reporte de Ingresos Mensuales - Año " + año);
+            byte[] excelBytes = reporteArchivoService.obtenerExcelIngresosMensuales(año, false);
 
             String filename = String.format("reporte-ingresos-mensuales-%d.xlsx", año);
 
@@ -116,36 +127,187 @@ public class ReporteController {
         }
     }
 
-    // Endpoints para obtener datos en JSON (frontend)
-    @PostMapping("/pagos/datos")
-    public ResponseEntity<List<ReportePagosDto>> obtenerDatosReportePagos(@Valid @RequestBody ReporteRequest request) {
-        logger.info("Obteniendo datos de reporte de pagos: {} a {}", request.fechaInicio(), request.fechaFin());
+    // Ingresos mensuales, pagos y uso de vehículos del año en un solo archivo (una hoja por reporte)
+    @GetMapping("/anual/{año}/excel")
+    public ResponseEntity<Resource> generarReporteAnualExcel(@PathVariable Integer año) {
+        try {
+            logger.info("Solicitando reporte anual consolidado en Excel para el año {}", año);
 
-        List<ReportePagosDto> datos = reportePagosService.generarReportePagos(
-                request.fechaInicio(), request.fechaFin());
+            byte[] excelBytes = reporteArchivoService.obtenerExcelAnual(año, false);
 
-        return ResponseEntity.ok(datos);
+            String filename = String.format("reporte-anual-%d.xlsx", año);
+
+            return construirRespuestaDescarga(excelBytes, filename);
+
+        } catch (IOException e) {
+            logger.error("Error generando Excel de reporte anual: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoints CSV (opcionalmente gzip) para cargas contables: las filas se escriben directo a la respuesta
+    @PostMapping("/pagos/csv")
+    public void generarReportePagosCsv(@Valid @RequestBody ReporteRequest request,
+                                       @RequestParam(defaultValue = "false") boolean gzip,
+                                       HttpServletResponse response) throws IOException {
+        logger.info("Solicitando reporte de pagos en CSV: {} a {} (gzip={})",
+                request.fechaInicio(), request.fechaFin(), gzip);
+
+        String filename = String.format("reporte-pagos-%s-a-%s.csv",
+                request.fechaInicio().format(DateTimeFormatter.BASIC_ISO_DATE),
+                request.fechaFin().format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        // La descarga se abre con la primera fila: las consultas a msvc-contratos y msvc-clientes
+        // terminan antes, así que si fallan la respuesta sigue intacta y el error sale como JSON
+        AtomicReference<EscritorCsv> escritor = new AtomicReference<>();
+        try {
+            reportePagosService.generarReportePagos(request.fechaInicio(), request.fechaFin(),
+                    pago -> csvGeneratorService.escribirFilaPago(abrirDescargaPagos(escritor, response, filename, gzip), pago),
+                    "CSV");
+            // Sin filas la descarga lleva solo el encabezado
+            abrirDescargaPagos(escritor, response, filename, gzip).close();
+        } catch (RuntimeException e) {
+            // Lo escrito sin confirmar se descarta; si ya se envió parte del archivo no hay vuelta atrás
+            // y la conexión se corta sin cerrar el archivo, así el cliente no lo recibe como completo
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw e;
+        }
+    }
+
+    @PostMapping("/uso-vehiculos/csv")
+    public void generarReporteUsoVehiculosCsv(@Valid @RequestBody ReporteRequest request,
+                                              @RequestParam(defaultValue = "false") boolean gzip,
+                                              HttpServletResponse response) throws IOException {
+        logger.info("Solicitando reporte de uso de vehículos en CSV: {} a {} (gzip={})",
+                request.fechaInicio(), request.fechaFin(), gzip);
+
+        List<ReporteUsoVehiculosDto> datos = ejecucionUnica.ejecutar(
+                clave("USO_VEHICULOS", request.fechaInicio(), request.fechaFin()),
+                () -> reporteUsoVehiculosService.generarReporteUsoVehiculos(request.fechaInicio(), request.fechaFin()));
+
+        String filename = String.format("reporte-uso-vehiculos-%s-a-%s.csv",
+                request.fechaInicio().format(DateTimeFormatter.BASIC_ISO_DATE),
+                request.fechaFin().format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        try (EscritorCsv escritor = abrirDescargaCsv(response, filename, gzip)) {
+            csvGeneratorService.escribirReporteUsoVehiculos(escritor, datos);
+        }
+    }
+
+    @GetMapping("/ingresos-mensuales/{año}/csv")
+    public void generarReporteIngresosMensualesCsv(@PathVariable Integer año,
+                                                   @RequestParam(defaultValue = "false") boolean gzip,
+                                                   HttpServletResponse response) throws IOException {
+        logger.info("Solicitando reporte de ingresos mensuales en CSV para el año {} (gzip={})", año, gzip);
+
+        List<ReporteIngresosDto> datos = ejecucionUnica.ejecutar(clave("INGRESOS_MENSUALES", año),
+                () -> reporteIngresosService.generarReporteIngresosMensuales(año));
+
+        try (EscritorCsv escritor = abrirDescargaCsv(response,
+                String.format("reporte-ingresos-mensuales-%d.csv", año), gzip)) {
+            csvGeneratorService.escribirReporteIngresos(escritor, datos);
+        }
+    }
+
+    // Endpoints para obtener datos en JSON (frontend); sort con formato "campo,asc|desc"
+    @PostMapping("/pagos/datos")
+    public ResponseEntity<PaginaReporteDto<ReportePagosDto, TotalesPagosDto>> obtenerDatosReportePagos(
+            @Valid @RequestBody ReporteRequest request,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String sort) {
+        logger.info("Obteniendo datos de reporte de pagos: {} a {} (página {}, tamaño {}, orden {})",
+                request.fechaInicio(), request.fechaFin(), page, size, sort);
+
+        return ResponseEntity.ok(reporteDatosService.obtenerPaginaPagos(
+                request.fechaInicio(), request.fechaFin(), page, size, sort));
     }
 
     @PostMapping("/uso-vehiculos/datos")
-    public ResponseEntity<List<ReporteUsoVehiculosDto>> obtenerDatosReporteUsoVehiculos(@Valid @RequestBody ReporteRequest request) {
-        logger.info("Obteniendo datos de reporte de uso de vehículos: {} a {}", request.fechaInicio(), request.fechaFin());
+    public ResponseEntity<PaginaReporteDto<ReporteUsoVehiculosDto, TotalesUsoVehiculosDto>> obtenerDatosReporteUsoVehiculos(
+            @Valid @RequestBody ReporteRequest request,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String sort) {
+        logger.info("Obteniendo datos de reporte de uso de vehículos: {} a {} (página {}, tamaño {}, orden {})",
+                request.fechaInicio(), request.fechaFin(), page, size, sort);
+
+        return ResponseEntity.ok(reporteDatosService.obtenerPaginaUsoVehiculos(
+                request.fechaInicio(), request.fechaFin(), page, size, sort));
+    }
 
-        List<ReporteUsoVehiculosDto> datos = reporteUsoVehiculosService.generarReporteUsoVehiculos(
-                request.fechaInicio(), request.fechaFin());
+    @PostMapping("/uso-vehiculos/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasUsoVehiculos(@Valid @RequestBody ReporteRequest request) {
+        logger.info("Obteniendo estadísticas de uso de vehículos: {} a {}", request.fechaInicio(), request.fechaFin());
 
-        return ResponseEntity.ok(datos);
+        Map<String, Object> estadisticas = ejecucionUnica.ejecutar(
+                clave("ESTADISTICAS_USO_VEHICULOS", request.fechaInicio(), request.fechaFin()),
+                () -> reporteUsoVehiculosService.obtenerEstadisticasUsoVehiculos(request.fechaInicio(), request.fechaFin()));
+
+        return ResponseEntity.ok(estadisticas);
     }
 
     @GetMapping("/ingresos-mensuales/{año}/datos")
     public ResponseEntity<List<ReporteIngresosDto>> obtenerDatosReporteIngresosMensuales(@PathVariable Integer año) {
         logger.info("Obteniendo datos de reporte de ingresos mensuales para el año {}", año);
 
-        List<ReporteIngresosDto> datos = reporteIngresosService.generarReporteIngresosMensuales(año);
+        List<ReporteIngresosDto> datos = ejecucionUnica.ejecutar(clave("INGRESOS_MENSUALES", año),
+                () -> reporteIngresosService.generarReporteIngresosMensuales(año));
 
         return ResponseEntity.ok(datos);
     }
 
+    @GetMapping("/ingresos-trimestrales/{año}/datos")
+    public ResponseEntity<List<ReporteIngresosTrimestralDto>> obtenerDatosReporteIngresosTrimestrales(@PathVariable Integer año) {
+        logger.info("Obteniendo datos de reporte de ingresos trimestrales para el año {}", año);
+
+        List<ReporteIngresosTrimestralDto> datos = ejecucionUnica.ejecutar(clave("INGRESOS_TRIMESTRALES", año),
+                () -> reporteIngresosService.generarReporteIngresosTrimestrales(año));
+
+        return ResponseEntity.ok(datos);
+    }
+
+    // Obliga a recalcular un mes cerrado en el próximo reporte de ingresos
+    @PostMapping("/ingresos-mensuales/{año}/{mes}/reabrir")
+    public ResponseEntity<Void> reabrirMesIngresos(@PathVariable Integer año, @PathVariable Integer mes) {
+        logger.info("Reabriendo resumen de ingresos de {}-{}", año, mes);
+
+        reporteIngresosService.reabrirMes(año, mes);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Solicitudes idénticas simultáneas comparten un solo cálculo; la clave es el tipo de reporte y sus parámetros
+    private String clave(String tipoReporte, Object... parametros) {
+        StringBuilder clave = new StringBuilder("DATOS:").append(tipoReporte);
+        for (Object parametro : parametros) {
+            clave.append(':').append(parametro);
+        }
+        return clave.toString();
+    }
+
+    private EscritorCsv abrirDescargaPagos(AtomicReference<EscritorCsv> escritor, HttpServletResponse response,
+                                           String filename, boolean gzip) {
+        if (escritor.get() == null) {
+            try {
+                EscritorCsv abierto = abrirDescargaCsv(response, filename, gzip);
+                csvGeneratorService.escribirEncabezadoPagos(abierto);
+                escritor.set(abierto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return escritor.get();
+    }
+
+    private EscritorCsv abrirDescargaCsv(HttpServletResponse response, String filename, boolean gzip) throws IOException {
+        response.setContentType(gzip ? "application/gzip" : "text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + filename + (gzip ? ".gz" : "") + "\"");
+        return new EscritorCsv(response.getOutputStream(), gzip);
+    }
+
     private ResponseEntity<Resource> construirRespuestaDescarga(byte[] contenido, String filename) {
         ByteArrayResource resource = new ByteArrayResource(contenido);
 
@@ -158,9 +320,11 @@ public class ReporteController {
 
     // Consultas de reporte
     @GetMapping("/generados")
-    public ResponseEntity<List<Reporte>> obtenerTodosLosReportes() {
-        List<Reporte> reportes = reporteConsultaService.obtenerTodosLosReportes();
-        return ResponseEntity.ok(reportes);
+    public ResponseEntity<PagedModel<Reporte>> obtenerReportesGenerados(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<Reporte> reportes = reporteConsultaService.obtenerReportesPaginados(page, size);
+        return ResponseEntity.ok(new PagedModel<>(reportes));
     }
 
     @GetMapping("/generados/{id}")
@@ -171,18 +335,23 @@ public class ReporteController {
     }
 
     @GetMapping("/generados/tipo/{tipoReporte}")
-    public ResponseEntity<List<Reporte>> obtenerReportesPorTipo(@PathVariable String tipoReporte) {
-        List<Reporte> reportes = reporteConsultaService.obtenerReportesPorTipo(tipoReporte);
-        return ResponseEntity.ok(reportes);
+    public ResponseEntity<PagedModel<Reporte>> obtenerReportesPorTipo(
+            @PathVariable String tipoReporte,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<Reporte> reportes = reporteConsultaService.obtenerReportesPorTipo(tipoReporte, page, size);
+        return ResponseEntity.ok(new PagedModel<>(reportes));
     }
 
     @GetMapping("/generados/fecha/{desde}/{hasta}")
-    public ResponseEntity<List<Reporte>> obtenerReportesPorRangoFechas(
+    public ResponseEntity<PagedModel<Reporte>> obtenerReportesPorRangoFechas(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
 
-        List<Reporte> reportes = reporteConsultaService.obtenerReportesPorRangoFechas(desde, hasta);
-        return ResponseEntity.ok(reportes);
+        Page<Reporte> reportes = reporteConsultaService.obtenerReportesPorRangoFechas(desde, hasta, page, size);
+        return ResponseEntity.ok(new PagedModel<>(reportes));
     }
 
     @GetMapping("/generados/ultimos")
@@ -0,0 +1,14 @@
+package com.grupodos.alquilervehiculos.msvcreportes.dto;
+
+import java.util.List;
+
+// Una página de un reporte ya calculado, con los totales de todas las filas (no solo de la página)
+public record PaginaReporteDto<T, R>(
+        List<T> contenido,
+        int pagina,
+        int tamanio,
+        long totalElementos,
+        int totalPaginas,
+        String orden,
+        R totales
+) {}
@@ -0,0 +1,14 @@
+package com.grupodos.alquilervehiculos.msvcreportes.dto;
+
+import java.math.BigDecimal;
+
+public record ReporteIngresosTrimestralDto(
+        Integer anio,
+        Integer trimestre,
+        Integer totalContratos,
+        BigDecimal totalIngresos,
+        BigDecimal promedioPorContrato,
+        BigDecimal igvRecaudado,
+        Integer cantidadClientes,
+        Integer cantidadVehiculosUtilizados
+) {}
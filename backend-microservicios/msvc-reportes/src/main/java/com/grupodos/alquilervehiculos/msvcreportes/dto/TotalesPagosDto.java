@@ -0,0 +1,11 @@
+package com.grupodos.alquilervehiculos.msvcreportes.dto;
+
+import java.math.BigDecimal;
+
+public record TotalesPagosDto(
+        long cantidadComprobantes,
+        int cantidadClientes,
+        BigDecimal subtotal,
+        BigDecimal igv,
+        BigDecimal total
+) {}
@@ -0,0 +1,11 @@
+package com.grupodos.alquilervehiculos.msvcreportes.dto;
+
+import java.math.BigDecimal;
+
+public record TotalesUsoVehiculosDto(
+        long cantidadVehiculos,
+        long vehiculosConUso,
+        int totalDiasAlquilados,
+        int cantidadContratos,
+        BigDecimal totalRecaudado
+) {}
@@ -0,0 +1,36 @@
+package com.grupodos.alquilervehiculos.msvcreportes.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Rango de días ya volcado en uso_vehiculos_diario (incluye los días sin alquileres)
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "consolidacion_uso_vehiculos")
+public class ConsolidacionUsoVehiculos {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private LocalDate desde;
+
+    @Column(nullable = false)
+    private LocalDate hasta;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public ConsolidacionUsoVehiculos(Integer id, LocalDate desde) {
+        this.id = id;
+        this.desde = desde;
+        this.hasta = desde.minusDays(1);
+    }
+}
@@ -14,7 +14,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "reportes_generados")
+@Table(name = "reportes_generados", indexes = {
+        @Index(name = "idx_reportes_tipo_fecha", columnList = "tipo_reporte, fecha_generacion"),
+        @Index(name = "idx_reportes_fecha", columnList = "fecha_generacion")
+})
 public class Reporte {
 
     @Id
@@ -41,4 +44,17 @@ public class Reporte {
 
     @Column
     private Long tamañoBytes;
+
+    // Métricas de la generación (null en etapas que el reporte no tiene, p. ej. sin archivo)
+    @Column
+    private Integer cantidadRegistros;
+
+    @Column
+    private Long duracionObtencionMs;
+
+    @Column
+    private Long duracionAgregacionMs;
+
+    @Column
+    private Long duracionGeneracionMs;
 }
@@ -0,0 +1,75 @@
+package com.grupodos.alquilervehiculos.msvcreportes.entities;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.converters.UuidSetConverter;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "resumen_ingresos_mensuales",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumen_ingresos_anio_mes", columnNames = {"anio", "mes"}))
+public class ResumenIngresoMensual {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private Integer anio;
+
+    @Column(nullable = false)
+    private Integer mes;
+
+    @Column(nullable = false)
+    private Integer totalContratos = 0;
+
+    @Column(nullable = false)
+    private Integer totalComprobantes = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalIngresos = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal igvRecaudado = BigDecimal.ZERO;
+
+    // Conjuntos de IDs (no solo conteos) para poder combinar meses y trimestres sin doble conteo
+    @Convert(converter = UuidSetConverter.class)
+    @Column(name = "clientes_ids", columnDefinition = "TEXT")
+    private Set<UUID> clientesIds = new HashSet<>();
+
+    @Convert(converter = UuidSetConverter.class)
+    @Column(name = "vehiculos_ids", columnDefinition = "TEXT")
+    private Set<UUID> vehiculosIds = new HashSet<>();
+
+    // Un mes cerrado (pasado el período de gracia) no se vuelve a consultar en msvc-contratos salvo que se reabra
+    @Column(nullable = false)
+    private Boolean cerrado = false;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public ResumenIngresoMensual(YearMonth periodo) {
+        this.anio = periodo.getYear();
+        this.mes = periodo.getMonthValue();
+    }
+
+    @Transient
+    public YearMonth getPeriodo() {
+        return YearMonth.of(anio, mes);
+    }
+
+    public boolean tieneDatos() {
+        return totalContratos > 0 || totalComprobantes > 0;
+    }
+}
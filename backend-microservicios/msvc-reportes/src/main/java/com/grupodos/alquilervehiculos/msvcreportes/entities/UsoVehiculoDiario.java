@@ -0,0 +1,58 @@
+package com.grupodos.alquilervehiculos.msvcreportes.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "uso_vehiculos_diario",
+        uniqueConstraints = @UniqueConstraint(name = "uk_uso_vehiculos_placa_fecha", columnNames = {"placa", "fecha"}))
+public class UsoVehiculoDiario {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false, length = 10)
+    private String placa;
+
+    // Día de creación de los contratos, igual que el filtro del reporte de uso
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(nullable = false)
+    private Integer diasAlquilados = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal ingresos = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer contratos = 0;
+
+    // Sumas acumuladas por placa desde el inicio de la consolidación: el total de un rango
+    // es la diferencia entre el acumulado al final y el acumulado del día anterior al inicio
+    @Column(nullable = false)
+    private Integer diasAcumulados = 0;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal ingresosAcumulados = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer contratosAcumulados = 0;
+
+    // Fecha de fin más tardía entre los contratos del día (el "último alquiler" del reporte de uso)
+    private LocalDate ultimoAlquiler;
+
+    public UsoVehiculoDiario(String placa, LocalDate fecha) {
+        this.placa = placa;
+        this.fecha = fecha;
+    }
+}
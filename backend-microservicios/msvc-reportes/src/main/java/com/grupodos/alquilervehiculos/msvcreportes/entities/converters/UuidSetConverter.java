@@ -0,0 +1,42 @@
+package com.grupodos.alquilervehiculos.msvcreportes.entities.converters;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// Persiste un conjunto de IDs como texto separado por comas para poder unir conjuntos sin releer datos crudos
+@Converter
+public class UuidSetConverter implements AttributeConverter<Set<UUID>, String> {
+
+    private static final String SEPARADOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(Set<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(ids.size() * 37);
+        for (UUID id : ids) {
+            if (sb.length() > 0) sb.append(SEPARADOR);
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Set<UUID> convertToEntityAttribute(String valor) {
+        Set<UUID> ids = new HashSet<>();
+        if (valor == null || valor.isBlank()) {
+            return ids;
+        }
+        for (String parte : valor.split(SEPARADOR)) {
+            if (!parte.isBlank()) {
+                ids.add(UUID.fromString(parte.trim()));
+            }
+        }
+        return ids;
+    }
+}
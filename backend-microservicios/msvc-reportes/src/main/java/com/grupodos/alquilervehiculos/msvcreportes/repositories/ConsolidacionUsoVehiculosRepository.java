@@ -0,0 +1,29 @@
+package com.grupodos.alquilervehiculos.msvcreportes.repositories;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.ConsolidacionUsoVehiculos;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface ConsolidacionUsoVehiculosRepository extends JpaRepository<ConsolidacionUsoVehiculos, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ConsolidacionUsoVehiculos c WHERE c.id = :id")
+    Optional<ConsolidacionUsoVehiculos> findConBloqueoById(@Param("id") Integer id);
+
+    // Crea la fila de control si no existe; dos primeras consolidaciones simultáneas terminan
+    // esperando el bloqueo de la misma fila en lugar de insertar cada una la suya
+    @Modifying
+    @Query(value = """
+            INSERT INTO consolidacion_uso_vehiculos (id, desde, hasta, fecha_actualizacion)
+            VALUES (:id, :desde, :hasta, now())
+            ON CONFLICT (id) DO NOTHING
+            """, nativeQuery = true)
+    int sembrar(@Param("id") Integer id, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
@@ -1,9 +1,19 @@
 package com.grupodos.alquilervehiculos.msvcreportes.repositories;
 
 import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface ReporteRepository extends JpaRepository<Reporte, UUID> {
+
+    Page<Reporte> findByTipoReporte(String tipoReporte, Pageable pageable);
+
+    Page<Reporte> findByFechaGeneracionBetween(LocalDateTime desde, LocalDateTime hasta, Pageable pageable);
+
+    List<Reporte> findAllByOrderByFechaGeneracionDesc(Pageable pageable);
 }
@@ -0,0 +1,19 @@
+package com.grupodos.alquilervehiculos.msvcreportes.repositories;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.ResumenIngresoMensual;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ResumenIngresoMensualRepository extends JpaRepository<ResumenIngresoMensual, UUID> {
+
+    List<ResumenIngresoMensual> findByAnioOrderByMesAsc(Integer anio);
+
+    @Modifying
+    @Query("UPDATE ResumenIngresoMensual r SET r.cerrado = false WHERE r.anio = :anio AND r.mes = :mes AND r.cerrado = true")
+    int reabrir(@Param("anio") Integer anio, @Param("mes") Integer mes);
+}
@@ -0,0 +1,34 @@
+package com.grupodos.alquilervehiculos.msvcreportes.repositories;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.UsoVehiculoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface UsoVehiculoDiarioRepository extends JpaRepository<UsoVehiculoDiario, UUID> {
+
+    // Último registro de cada placa hasta la fecha indicada, con sus acumulados a ese día
+    @Query("SELECT u FROM UsoVehiculoDiario u WHERE u.fecha = " +
+            "(SELECT MAX(u2.fecha) FROM UsoVehiculoDiario u2 WHERE u2.placa = u.placa AND u2.fecha <= :fecha)")
+    List<UsoVehiculoDiario> findAcumuladosAl(@Param("fecha") LocalDate fecha);
+
+    @Query("SELECT u.placa AS placa, MAX(u.ultimoAlquiler) AS ultimoAlquiler FROM UsoVehiculoDiario u " +
+            "WHERE u.fecha BETWEEN :desde AND :hasta GROUP BY u.placa")
+    List<UltimoAlquiler> findUltimoAlquilerEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Los acumulados de los días posteriores dependen de estos, por eso se borra hasta el final
+    @Modifying
+    @Query("DELETE FROM UsoVehiculoDiario u WHERE u.fecha >= :desde")
+    int deleteDesde(@Param("desde") LocalDate desde);
+
+    interface UltimoAlquiler {
+        String getPlaca();
+
+        LocalDate getUltimoAlquiler();
+    }
+}
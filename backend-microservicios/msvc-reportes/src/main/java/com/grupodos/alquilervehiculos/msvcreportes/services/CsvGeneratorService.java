@@ -0,0 +1,80 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteIngresosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteUsoVehiculosDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@Slf4j
+public class CsvGeneratorService {
+
+    private static final String[] ENCABEZADO_PAGOS = {
+            "numero_comprobante", "fecha_emision", "tipo_comprobante", "cliente", "documento_cliente",
+            "tipo_cliente", "subtotal", "igv", "total", "estado", "codigo_contrato"
+    };
+
+    private static final String[] ENCABEZADO_USO_VEHICULOS = {
+            "placa", "marca", "modelo", "tipo_vehiculo", "dias_alquilados",
+            "cantidad_contratos", "total_recaudado", "porcentaje_uso", "ultimo_alquiler"
+    };
+
+    private static final String[] ENCABEZADO_INGRESOS = {
+            "mes", "total_contratos", "total_ingresos", "promedio_por_contrato",
+            "igv_recaudado", "clientes_atendidos", "vehiculos_utilizados"
+    };
+
+    public void escribirEncabezadoPagos(EscritorCsv escritor) {
+        escritor.fila(ENCABEZADO_PAGOS);
+    }
+
+    public void escribirFilaPago(EscritorCsv escritor, ReportePagosDto pago) {
+        escritor.campo(pago.numeroComprobante())
+                .campo(pago.fechaEmision())
+                .campo(pago.tipoComprobante())
+                .campo(pago.cliente())
+                .campo(pago.documentoCliente())
+                .campo(pago.tipoCliente())
+                .campo(pago.subtotal())
+                .campo(pago.igv())
+                .campo(pago.total())
+                .campo(pago.estadoComprobante())
+                .campo(pago.codigoContrato())
+                .finFila();
+    }
+
+    public void escribirReporteUsoVehiculos(EscritorCsv escritor, List<ReporteUsoVehiculosDto> usoVehiculos) {
+        log.debug("Generando reporte de uso de vehículos en CSV con {} registros", usoVehiculos.size());
+        escritor.fila(ENCABEZADO_USO_VEHICULOS);
+        for (ReporteUsoVehiculosDto uso : usoVehiculos) {
+            escritor.campo(uso.placa())
+                    .campo(uso.marca())
+                    .campo(uso.modelo())
+                    .campo(uso.tipoVehiculo())
+                    .campo(uso.totalDiasAlquilados())
+                    .campo(uso.cantidadContratos())
+                    .campo(uso.totalRecaudado())
+                    .campo(uso.porcentajeUso())
+                    .campo(uso.ultimoAlquiler())
+                    .finFila();
+        }
+    }
+
+    public void escribirReporteIngresos(EscritorCsv escritor, List<ReporteIngresosDto> ingresos) {
+        log.debug("Generando reporte de ingresos en CSV con {} registros", ingresos.size());
+        escritor.fila(ENCABEZADO_INGRESOS);
+        for (ReporteIngresosDto ingreso : ingresos) {
+            escritor.campo(ingreso.mes())
+                    .campo(ingreso.totalContratos())
+                    .campo(ingreso.totalIngresos())
+                    .campo(ingreso.promedioPorContrato())
+                    .campo(ingreso.igvRecaudado())
+                    .campo(ingreso.cantidadClientes())
+                    .campo(ingreso.cantidadVehiculosUtilizados())
+                    .finFila();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.zip.GZIPOutputStream;
+
+// Escritor CSV con buffer propio: escribe fila por fila directamente al stream de salida (opcionalmente comprimido)
+public class EscritorCsv implements Closeable {
+
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+    private static final char SEPARADOR = ',';
+
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+    private boolean inicioFila = true;
+
+    public EscritorCsv(OutputStream salida, boolean comprimir) throws IOException {
+        this.gzip = comprimir ? new GZIPOutputStream(salida, TAMANIO_BUFFER) : null;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(comprimir ? gzip : salida, StandardCharsets.UTF_8), TAMANIO_BUFFER);
+    }
+
+    public EscritorCsv campo(String valor) {
+        try {
+            separar();
+            if (valor == null) return this;
+            if (requiereComillas(valor)) {
+                writer.write('"');
+                for (int i = 0; i < valor.length(); i++) {
+                    char c = valor.charAt(i);
+                    if (c == '"') writer.write('"');
+                    writer.write(c);
+                }
+                writer.write('"');
+            } else {
+                writer.write(valor);
+            }
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public EscritorCsv campo(BigDecimal valor) {
+        return campoSinEscape(valor != null ? valor.toPlainString() : null);
+    }
+
+    public EscritorCsv campo(Number valor) {
+        return campoSinEscape(valor != null ? valor.toString() : null);
+    }
+
+    // Fechas y meses se escriben en ISO-8601, que no requiere escape
+    public EscritorCsv campo(TemporalAccessor valor) {
+        return campoSinEscape(valor != null ? valor.toString() : null);
+    }
+
+    public void finFila() {
+        try {
+            writer.write("\r\n");
+            inicioFila = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void fila(String... valores) {
+        for (String valor : valores) {
+            campo(valor);
+        }
+        finFila();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        writer.close();
+    }
+
+    private EscritorCsv campoSinEscape(String valor) {
+        try {
+            separar();
+            if (valor != null) writer.write(valor);
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void separar() throws IOException {
+        if (!inicioFila) {
+            writer.write(SEPARADOR);
+        }
+        inicioFila = false;
+    }
+
+    private static boolean requiereComillas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == SEPARADOR || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -7,7 +7,8 @@ import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteGenerationE
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -15,115 +16,34 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class ExcelGeneratorService {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy", java.util.Locale.forLanguageTag("es"));
 
-    public byte[] generarReportePagosExcel(List<ReportePagosDto> pagos, String titulo) throws IOException {
-        log.debug("Generando reporte de pagos en Excel con {} registros", pagos.size());
-
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Reporte de Pagos");
-
-            // Crear estilos
-            CellStyle headerStyle = crearEstiloHeader(workbook);
-            CellStyle currencyStyle = crearEstiloMoneda(workbook);
-            CellStyle dateStyle = crearEstiloFecha(workbook);
-            CellStyle titleStyle = crearEstiloTitulo(workbook);
-            CellStyle totalStyle = crearEstiloTotal(workbook);
-            CellStyle subtitleStyle = crearEstiloSubtitulo(workbook);
-
-            int currentRow = 0;
-
-            // Título principal
-            currentRow = agregarTituloPrincipal(sheet, titleStyle, titulo, 11, currentRow);
-
-            // Subtítulo con información del reporte
-            currentRow = agregarSubtitulo(sheet, subtitleStyle,
-                    String.format("Total de registros: %d | Fecha de generación: %s",
-                            pagos.size(), java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER)),
-                    11, currentRow);
-
-            currentRow++; // Espacio
-
-            // Encabezados
-            currentRow = crearHeader(sheet, headerStyle, new String[]{
-                    "N° Comprobante", "Fecha Emisión", "Tipo", "Cliente",
-                    "Documento", "Tipo Cliente", "Subtotal", "IGV", "Total", "Estado", "Contrato"
-            }, currentRow);
+    // autoSizeColumn mide el texto de cada celda; en hojas grandes se usa un ancho fijo por columna
+    private static final int MAXIMO_FILAS_AUTOAJUSTE = 2_000;
+    private static final int ANCHO_COLUMNA_FIJO = 18 * 256;
 
-            // Datos
-            BigDecimal subtotalGeneral = BigDecimal.ZERO;
-            BigDecimal igvGeneral = BigDecimal.ZERO;
-            BigDecimal totalGeneral = BigDecimal.ZERO;
+    // Tamaño aproximado del xlsx comprimido, para no redimensionar el buffer de salida varias veces
+    private static final int BYTES_BASE_ARCHIVO = 8 * 1024;
+    private static final int BYTES_POR_FILA = 96;
 
-            int startDataRow = currentRow;
-
-            for (ReportePagosDto pago : pagos) {
-                Row row = sheet.createRow(currentRow++);
-
-                // N° Comprobante
-                cellSegura(row, 0, pago.numeroComprobante());
-
-                // Fecha Emisión
-                Cell fechaCell = row.createCell(1);
-                if (pago.fechaEmision() != null) {
-                    fechaCell.setCellValue(pago.fechaEmision().format(DATE_TIME_FORMATTER));
-                    fechaCell.setCellStyle(dateStyle);
-                } else {
-                    cellSegura(row, 1, "N/A");
-                }
-
-                cellSegura(row, 2, pago.tipoComprobante());
-                cellSegura(row, 3, pago.cliente());
-                cellSegura(row, 4, pago.documentoCliente());
-                cellSegura(row, 5, pago.tipoCliente());
-
-                // Subtotal
-                Cell subtotalCell = row.createCell(6);
-                double subtotalValor = pago.subtotal() != null ? pago.subtotal().doubleValue() : 0.0;
-                subtotalCell.setCellValue(subtotalValor);
-                subtotalCell.setCellStyle(currencyStyle);
-                if (pago.subtotal() != null) subtotalGeneral = subtotalGeneral.add(pago.subtotal());
-
-                // IGV
-                Cell igvCell = row.createCell(7);
-                double igvValor = pago.igv() != null ? pago.igv().doubleValue() : 0.0;
-                igvCell.setCellValue(igvValor);
-                igvCell.setCellStyle(currencyStyle);
-                if (pago.igv() != null) igvGeneral = igvGeneral.add(pago.igv());
-
-                // Total
-                Cell totalCell = row.createCell(8);
-                double totalValor = pago.total() != null ? pago.total().doubleValue() : 0.0;
-                totalCell.setCellValue(totalValor);
-                totalCell.setCellStyle(currencyStyle);
-                if (pago.total() != null) totalGeneral = totalGeneral.add(pago.total());
-
-                cellSegura(row, 9, pago.estadoComprobante());
-                cellSegura(row, 10, pago.codigoContrato());
-            }
-
-            // Totales generales
-            currentRow = agregarTotalesPagos(sheet, totalStyle, currencyStyle,
-                    subtotalGeneral, igvGeneral, totalGeneral, currentRow, 11);
-
-            // Autoajustar columnas
-            for (int i = 0; i < 11; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    // Filas que SXSSF mantiene en memoria por hoja antes de volcarlas al archivo temporal
+    private static final int FILAS_EN_MEMORIA = 500;
 
-            // Congelar paneles (título y encabezados)
-            sheet.createFreezePane(0, startDataRow);
+    public byte[] generarReportePagosExcel(List<ReportePagosDto> pagos, String titulo) throws IOException {
+        log.debug("Generando reporte de pagos en Excel con {} registros", pagos.size());
 
-            workbook.write(baos);
+        try {
+            byte[] archivo = generarLibro(pagos.size(), (workbook, estilos) ->
+                    escribirHojaPagos(crearHojaStreaming(workbook, "Reporte de Pagos", pagos.size()), estilos, pagos, titulo));
             log.debug("Excel de pagos generado exitosamente");
-            return baos.toByteArray();
+            return archivo;
 
         } catch (IOException e) {
             log.error("Error de E/S generando Excel de pagos: {}", e.getMessage(), e);
@@ -137,96 +57,11 @@ public class ExcelGeneratorService {
     public byte[] generarReporteUsoVehiculosExcel(List<ReporteUsoVehiculosDto> usoVehiculos, String titulo) throws IOException {
         log.debug("Generando reporte de uso de vehículos en Excel con {} registros", usoVehiculos.size());
 
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Uso de Vehículos");
-
-            CellStyle headerStyle = crearEstiloHeader(workbook);
-            CellStyle currencyStyle = crearEstiloMoneda(workbook);
-            CellStyle percentStyle = crearEstiloPorcentaje(workbook);
-            CellStyle dateStyle = crearEstiloFecha(workbook);
-            CellStyle titleStyle = crearEstiloTitulo(workbook);
-            CellStyle totalStyle = crearEstiloTotal(workbook);
-            CellStyle subtitleStyle = crearEstiloSubtitulo(workbook);
-
-            int currentRow = 0;
-
-            // Título principal
-            currentRow = agregarTituloPrincipal(sheet, titleStyle, titulo, 9, currentRow);
-
-            // Subtítulo
-            currentRow = agregarSubtitulo(sheet, subtitleStyle,
-                    String.format("Total de vehículos: %d | Fecha de generación: %s",
-                            usoVehiculos.size(), java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER)),
-                    9, currentRow);
-
-            currentRow++;
-
-            // Encabezados
-            currentRow = crearHeader(sheet, headerStyle, new String[]{
-                    "Placa", "Marca", "Modelo", "Tipo", "Días Alquilados",
-                    "Cantidad Contratos", "Total Recaudado", "% Uso", "Último Alquiler"
-            }, currentRow);
-
-            // Datos
-            BigDecimal totalRecaudadoGeneral = BigDecimal.ZERO;
-            int totalDiasAlquilados = 0;
-            int totalContratos = 0;
-
-            int startDataRow = currentRow;
-
-            for (ReporteUsoVehiculosDto uso : usoVehiculos) {
-                Row row = sheet.createRow(currentRow++);
-
-                cellSegura(row, 0, uso.placa());
-                cellSegura(row, 1, uso.marca());
-                cellSegura(row, 2, uso.modelo());
-                cellSegura(row, 3, uso.tipoVehiculo());
-
-                // Días Alquilados
-                cellSegura(row, 4, uso.totalDiasAlquilados() != null ? uso.totalDiasAlquilados() : 0);
-                if (uso.totalDiasAlquilados() != null) totalDiasAlquilados += uso.totalDiasAlquilados();
-
-                // Cantidad Contratos
-                cellSegura(row, 5, uso.cantidadContratos() != null ? uso.cantidadContratos() : 0);
-                if (uso.cantidadContratos() != null) totalContratos += uso.cantidadContratos();
-
-                // Total Recaudado
-                Cell totalCell = row.createCell(6);
-                double totalValor = uso.totalRecaudado() != null ? uso.totalRecaudado().doubleValue() : 0.0;
-                totalCell.setCellValue(totalValor);
-                totalCell.setCellStyle(currencyStyle);
-                if (uso.totalRecaudado() != null) totalRecaudadoGeneral = totalRecaudadoGeneral.add(uso.totalRecaudado());
-
-                // % Uso
-                Cell percentCell = row.createCell(7);
-                double percentValor = uso.porcentajeUso() != null ? uso.porcentajeUso() / 100.0 : 0.0;
-                percentCell.setCellValue(percentValor);
-                percentCell.setCellStyle(percentStyle);
-
-                // Último Alquiler
-                if (uso.ultimoAlquiler() != null) {
-                    Cell fechaCell = row.createCell(8);
-                    fechaCell.setCellValue(uso.ultimoAlquiler().format(DATE_FORMATTER));
-                    fechaCell.setCellStyle(dateStyle);
-                } else {
-                    cellSegura(row, 8, "N/A");
-                }
-            }
-
-            // Totales generales
-            currentRow = agregarTotalesUsoVehiculos(sheet, totalStyle, currencyStyle,
-                    totalRecaudadoGeneral, totalDiasAlquilados, totalContratos, currentRow, 9);
-
-            // Autoajustar columnas
-            for (int i = 0; i < 9; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            sheet.createFreezePane(0, startDataRow);
-
-            workbook.write(baos);
+        try {
+            byte[] archivo = generarLibro(usoVehiculos.size(), (workbook, estilos) ->
+                    escribirHojaUsoVehiculos(crearHojaStreaming(workbook, "Uso de Vehículos", usoVehiculos.size()), estilos, usoVehiculos, titulo));
             log.debug("Excel de uso de vehículos generado exitosamente");
-            return baos.toByteArray();
+            return archivo;
 
         } catch (IOException e) {
             log.error("Error de E/S generando Excel de uso de vehículos: {}", e.getMessage(), e);
@@ -240,107 +75,11 @@ public class ExcelGeneratorService {
     public byte[] generarReporteIngresosExcel(List<ReporteIngresosDto> ingresos, String titulo) throws IOException {
         log.debug("Generando reporte de ingresos en Excel con {} registros", ingresos.size());
 
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Ingresos Mensuales");
-
-            CellStyle headerStyle = crearEstiloHeader(workbook);
-            CellStyle currencyStyle = crearEstiloMoneda(workbook);
-            CellStyle titleStyle = crearEstiloTitulo(workbook);
-            CellStyle totalStyle = crearEstiloTotal(workbook);
-            CellStyle subtitleStyle = crearEstiloSubtitulo(workbook);
-            CellStyle monthStyle = crearEstiloMes(workbook);
-
-            int currentRow = 0;
-
-            // Título principal
-            currentRow = agregarTituloPrincipal(sheet, titleStyle, titulo, 7, currentRow);
-
-            // Subtítulo
-            currentRow = agregarSubtitulo(sheet, subtitleStyle,
-                    String.format("Período analizado: %d meses | Fecha de generación: %s",
-                            ingresos.size(), java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER)),
-                    7, currentRow);
-
-            currentRow++;
-
-            // Encabezados
-            currentRow = crearHeader(sheet, headerStyle, new String[]{
-                    "Mes", "Total Contratos", "Total Ingresos", "Promedio por Contrato",
-                    "IGV Recaudado", "Clientes Atendidos", "Vehículos Utilizados"
-            }, currentRow);
-
-            // Datos
-            BigDecimal totalIngresosGeneral = BigDecimal.ZERO;
-            BigDecimal totalIgvGeneral = BigDecimal.ZERO;
-            int totalContratosGeneral = 0;
-            int totalClientesGeneral = 0;
-            int totalVehiculosGeneral = 0;
-
-            int startDataRow = currentRow;
-
-            for (ReporteIngresosDto ingreso : ingresos) {
-                Row row = sheet.createRow(currentRow++);
-
-                // Mes con formato en español
-                Cell mesCell = row.createCell(0);
-                if (ingreso.mes() != null) {
-                    String mesFormateado = ingreso.mes().format(MONTH_FORMATTER);
-                    // Capitalizar primera letra
-                    mesFormateado = mesFormateado.substring(0, 1).toUpperCase() + mesFormateado.substring(1);
-                    mesCell.setCellValue(mesFormateado);
-                } else {
-                    mesCell.setCellValue("N/A");
-                }
-                mesCell.setCellStyle(monthStyle);
-
-                // Total Contratos
-                cellSegura(row, 1, ingreso.totalContratos() != null ? ingreso.totalContratos() : 0);
-                if (ingreso.totalContratos() != null) totalContratosGeneral += ingreso.totalContratos();
-
-                // Total Ingresos
-                Cell ingresosCell = row.createCell(2);
-                double ingresosValor = ingreso.totalIngresos() != null ? ingreso.totalIngresos().doubleValue() : 0.0;
-                ingresosCell.setCellValue(ingresosValor);
-                ingresosCell.setCellStyle(currencyStyle);
-                if (ingreso.totalIngresos() != null) totalIngresosGeneral = totalIngresosGeneral.add(ingreso.totalIngresos());
-
-                // Promedio por Contrato
-                Cell promedioCell = row.createCell(3);
-                double promedioValor = ingreso.promedioPorContrato() != null ? ingreso.promedioPorContrato().doubleValue() : 0.0;
-                promedioCell.setCellValue(promedioValor);
-                promedioCell.setCellStyle(currencyStyle);
-
-                // IGV Recaudado
-                Cell igvCell = row.createCell(4);
-                double igvValor = ingreso.igvRecaudado() != null ? ingreso.igvRecaudado().doubleValue() : 0.0;
-                igvCell.setCellValue(igvValor);
-                igvCell.setCellStyle(currencyStyle);
-                if (ingreso.igvRecaudado() != null) totalIgvGeneral = totalIgvGeneral.add(ingreso.igvRecaudado());
-
-                // Clientes Atendidos
-                cellSegura(row, 5, ingreso.cantidadClientes() != null ? ingreso.cantidadClientes() : 0);
-                if (ingreso.cantidadClientes() != null) totalClientesGeneral += ingreso.cantidadClientes();
-
-                // Vehículos Utilizados
-                cellSegura(row, 6, ingreso.cantidadVehiculosUtilizados() != null ? ingreso.cantidadVehiculosUtilizados() : 0);
-                if (ingreso.cantidadVehiculosUtilizados() != null) totalVehiculosGeneral += ingreso.cantidadVehiculosUtilizados();
-            }
-
-            // Totales generales
-            currentRow = agregarTotalesIngresos(sheet, totalStyle, currencyStyle,
-                    totalIngresosGeneral, totalIgvGeneral, totalContratosGeneral,
-                    totalClientesGeneral, totalVehiculosGeneral, currentRow, 7);
-
-            // Autoajustar columnas
-            for (int i = 0; i < 7; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            sheet.createFreezePane(0, startDataRow);
-
-            workbook.write(baos);
+        try {
+            byte[] archivo = generarLibro(ingresos.size(), (workbook, estilos) ->
+                    escribirHojaIngresos(crearHojaStreaming(workbook, "Ingresos Mensuales", ingresos.size()), estilos, ingresos, titulo));
             log.debug("Excel de ingresos generado exitosamente");
-            return baos.toByteArray();
+            return archivo;
 
         } catch (IOException e) {
             log.error("Error de E/S generando Excel de ingresos: {}", e.getMessage(), e);
@@ -351,7 +90,253 @@ public class ExcelGeneratorService {
         }
     }
 
+    /**
+     * Reporte anual en un solo archivo con tres hojas (ingresos mensuales, pagos y uso de vehículos).
+     * Las hojas se llenan una tras otra en el hilo que llama: POI no es thread-safe (la tabla de
+     * estilos y los datos del libro son compartidos) y con SXSSF cada hoja ya se vuelca a disco
+     * a medida que se escribe, así que el costo está en obtener los datos, no en llenar las hojas.
+     */
+    public byte[] generarReporteAnualExcel(Integer anio, List<ReporteIngresosDto> ingresos,
+                                           List<ReportePagosDto> pagos,
+                                           List<ReporteUsoVehiculosDto> usoVehiculos) throws IOException {
+        log.debug("Generando reporte anual {} en Excel ({} meses, {} pagos, {} vehículos)",
+                anio, ingresos.size(), pagos.size(), usoVehiculos.size());
+
+        int filas = ingresos.size() + pagos.size() + usoVehiculos.size();
+
+        try {
+            byte[] archivo = generarLibro(filas, (workbook, estilos) -> {
+                escribirHojaIngresos(crearHojaStreaming(workbook, "Ingresos Mensuales", ingresos.size()), estilos,
+                        ingresos, "Ingresos Mensuales - Año " + anio);
+                escribirHojaPagos(crearHojaStreaming(workbook, "Pagos", pagos.size()), estilos,
+                        pagos, "Pagos - Año " + anio);
+                escribirHojaUsoVehiculos(crearHojaStreaming(workbook, "Uso de Vehículos", usoVehiculos.size()), estilos,
+                        usoVehiculos, "Uso de Vehículos - Año " + anio);
+            });
+            log.debug("Excel anual {} generado exitosamente", anio);
+            return archivo;
+
+        } catch (IOException e) {
+            log.error("Error de E/S generando Excel anual {}: {}", anio, e.getMessage(), e);
+            throw new ReporteGenerationException("Error generando archivo Excel anual", e);
+        } catch (Exception e) {
+            log.error("Error generando Excel anual {}: {}", anio, e.getMessage(), e);
+            throw new ReporteGenerationException("Error inesperado generando reporte anual", e);
+        }
+    }
+
+    // Todos los reportes usan SXSSF: solo FILAS_EN_MEMORIA filas por hoja quedan en memoria
+    private byte[] generarLibro(int filas, LlenadoLibro llenado) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA);
+        workbook.setCompressTempFiles(true);
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(tamanioInicial(filas))) {
+            llenado.llenar(workbook, crearEstilos(workbook));
+            // Los totales llevan su valor ya calculado para lectores que no evalúan fórmulas;
+            // Excel igual los recalcula al abrir
+            workbook.setForceFormulaRecalculation(true);
+            workbook.write(baos);
+            return baos.toByteArray();
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+
+    private SXSSFSheet crearHojaStreaming(SXSSFWorkbook workbook, String nombre, int filasDatos) {
+        SXSSFSheet sheet = workbook.createSheet(nombre);
+        // SXSSF solo puede autoajustar columnas que registró antes de volcar filas a disco
+        if (filasDatos <= MAXIMO_FILAS_AUTOAJUSTE) {
+            sheet.trackAllColumnsForAutoSizing();
+        }
+        return sheet;
+    }
+
+    private void escribirHojaPagos(Sheet sheet, Estilos estilos, List<ReportePagosDto> pagos, String titulo) {
+        int currentRow = 0;
+
+        // Título principal
+        currentRow = agregarTituloPrincipal(sheet, estilos.titulo(), titulo, 11, currentRow);
+
+        // Subtítulo con información del reporte
+        currentRow = agregarSubtitulo(sheet, estilos.subtitulo(),
+                "Total de registros: " + pagos.size() + " | Fecha de generación: " + fechaGeneracion(),
+                11, currentRow);
+
+        currentRow++; // Espacio
+
+        // Encabezados
+        currentRow = crearHeader(sheet, estilos.header(), new String[]{
+                "N° Comprobante", "Fecha Emisión", "Tipo", "Cliente",
+                "Documento", "Tipo Cliente", "Subtotal", "IGV", "Total", "Estado", "Contrato"
+        }, currentRow);
+
+        // Datos
+        int startDataRow = currentRow;
+
+        for (ReportePagosDto pago : pagos) {
+            Row row = sheet.createRow(currentRow++);
+
+            // N° Comprobante
+            cellSegura(row, 0, pago.numeroComprobante());
+
+            // Fecha Emisión como fecha numérica de Excel (ordenable y filtrable)
+            if (pago.fechaEmision() != null) {
+                Cell fechaCell = row.createCell(1);
+                fechaCell.setCellValue(pago.fechaEmision());
+                fechaCell.setCellStyle(estilos.fecha());
+            } else {
+                cellSegura(row, 1, "N/A");
+            }
+
+            cellSegura(row, 2, pago.tipoComprobante());
+            cellSegura(row, 3, pago.cliente());
+            cellSegura(row, 4, pago.documentoCliente());
+            cellSegura(row, 5, pago.tipoCliente());
+
+            celdaMoneda(row, 6, pago.subtotal(), estilos.moneda());
+            celdaMoneda(row, 7, pago.igv(), estilos.moneda());
+            celdaMoneda(row, 8, pago.total(), estilos.moneda());
+
+            cellSegura(row, 9, pago.estadoComprobante());
+            cellSegura(row, 10, pago.codigoContrato());
+        }
+
+        // Totales generales como fórmulas sobre las filas de datos
+        agregarTotalesPagos(sheet, estilos.total(), estilos.moneda(), pagos, startDataRow, currentRow);
+
+        ajustarColumnas(sheet, 11, pagos.size());
+
+        // Congelar paneles (título y encabezados)
+        sheet.createFreezePane(0, startDataRow);
+    }
+
+    private void escribirHojaUsoVehiculos(Sheet sheet, Estilos estilos, List<ReporteUsoVehiculosDto> usoVehiculos,
+                                          String titulo) {
+        int currentRow = 0;
+
+        // Título principal
+        currentRow = agregarTituloPrincipal(sheet, estilos.titulo(), titulo, 9, currentRow);
+
+        // Subtítulo
+        currentRow = agregarSubtitulo(sheet, estilos.subtitulo(),
+                "Total de vehículos: " + usoVehiculos.size() + " | Fecha de generación: " + fechaGeneracion(),
+                9, currentRow);
+
+        currentRow++;
+
+        // Encabezados
+        currentRow = crearHeader(sheet, estilos.header(), new String[]{
+                "Placa", "Marca", "Modelo", "Tipo", "Días Alquilados",
+                "Cantidad Contratos", "Total Recaudado", "% Uso", "Último Alquiler"
+        }, currentRow);
+
+        // Datos
+        int startDataRow = currentRow;
+
+        for (ReporteUsoVehiculosDto uso : usoVehiculos) {
+            Row row = sheet.createRow(currentRow++);
+
+            cellSegura(row, 0, uso.placa());
+            cellSegura(row, 1, uso.marca());
+            cellSegura(row, 2, uso.modelo());
+            cellSegura(row, 3, uso.tipoVehiculo());
+
+            cellSegura(row, 4, uso.totalDiasAlquilados());
+            cellSegura(row, 5, uso.cantidadContratos());
+            celdaMoneda(row, 6, uso.totalRecaudado(), estilos.moneda());
+
+            // % Uso
+            Cell percentCell = row.createCell(7);
+            percentCell.setCellValue(uso.porcentajeUso() != null ? uso.porcentajeUso() / 100.0 : 0.0);
+            percentCell.setCellStyle(estilos.porcentaje());
+
+            // Último Alquiler como fecha numérica de Excel
+            if (uso.ultimoAlquiler() != null) {
+                Cell fechaCell = row.createCell(8);
+                fechaCell.setCellValue(uso.ultimoAlquiler());
+                fechaCell.setCellStyle(estilos.dia());
+            } else {
+                cellSegura(row, 8, "N/A");
+            }
+        }
+
+        // Totales generales
+        agregarTotalesUsoVehiculos(sheet, estilos.total(), estilos.moneda(), usoVehiculos, startDataRow, currentRow);
+
+        ajustarColumnas(sheet, 9, usoVehiculos.size());
+
+        sheet.createFreezePane(0, startDataRow);
+    }
+
+    private void escribirHojaIngresos(Sheet sheet, Estilos estilos, List<ReporteIngresosDto> ingresos, String titulo) {
+        int currentRow = 0;
+
+        // Título principal
+        currentRow = agregarTituloPrincipal(sheet, estilos.titulo(), titulo, 7, currentRow);
+
+        // Subtítulo
+        currentRow = agregarSubtitulo(sheet, estilos.subtitulo(),
+                "Período analizado: " + ingresos.size() + " meses | Fecha de generación: " + fechaGeneracion(),
+                7, currentRow);
+
+        currentRow++;
+
+        // Encabezados
+        currentRow = crearHeader(sheet, estilos.header(), new String[]{
+                "Mes", "Total Contratos", "Total Ingresos", "Promedio por Contrato",
+                "IGV Recaudado", "Clientes Atendidos", "Vehículos Utilizados"
+        }, currentRow);
+
+        // Datos
+        int startDataRow = currentRow;
+
+        for (ReporteIngresosDto ingreso : ingresos) {
+            Row row = sheet.createRow(currentRow++);
+
+            // Mes con formato en español
+            Cell mesCell = row.createCell(0);
+            if (ingreso.mes() != null) {
+                String mesFormateado = ingreso.mes().format(MONTH_FORMATTER);
+                // Capitalizar primera letra
+                mesFormateado = mesFormateado.substring(0, 1).toUpperCase() + mesFormateado.substring(1);
+                mesCell.setCellValue(mesFormateado);
+            } else {
+                mesCell.setCellValue("N/A");
+            }
+            mesCell.setCellStyle(estilos.mes());
+
+            cellSegura(row, 1, ingreso.totalContratos());
+            celdaMoneda(row, 2, ingreso.totalIngresos(), estilos.moneda());
+            celdaMoneda(row, 3, ingreso.promedioPorContrato(), estilos.moneda());
+            celdaMoneda(row, 4, ingreso.igvRecaudado(), estilos.moneda());
+            cellSegura(row, 5, ingreso.cantidadClientes());
+            cellSegura(row, 6, ingreso.cantidadVehiculosUtilizados());
+        }
+
+        // Totales generales
+        agregarTotalesIngresos(sheet, estilos.total(), estilos.moneda(), ingresos, startDataRow, currentRow);
+
+        ajustarColumnas(sheet, 7, ingresos.size());
+
+        sheet.createFreezePane(0, startDataRow);
+    }
+
     // Metodos auxiliares
+    private Estilos crearEstilos(Workbook workbook) {
+        return new Estilos(
+                crearEstiloHeader(workbook),
+                crearEstiloTitulo(workbook),
+                crearEstiloSubtitulo(workbook),
+                crearEstiloTotal(workbook),
+                crearEstiloMoneda(workbook),
+                crearEstiloPorcentaje(workbook),
+                crearEstiloFecha(workbook),
+                crearEstiloDia(workbook),
+                crearEstiloMes(workbook)
+        );
+    }
+
     private CellStyle crearEstiloHeader(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -422,9 +407,16 @@ public class ExcelGeneratorService {
         return style;
     }
 
+    // Fecha y hora en 24 horas, como el texto "dd/MM/yyyy HH:mm" que se escribía antes
     private CellStyle crearEstiloFecha(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm AM/PM"));
+        style.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+        return style;
+    }
+
+    private CellStyle crearEstiloDia(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
         return style;
     }
 
@@ -473,7 +465,8 @@ public class ExcelGeneratorService {
     }
 
     private int agregarTotalesPagos(Sheet sheet, CellStyle totalStyle, CellStyle currencyStyle,
-                                    BigDecimal subtotal, BigDecimal igv, BigDecimal total, int rowNum, int numColumns) {
+                                    List<ReportePagosDto> pagos, int primeraFilaDatos, int rowNum) {
+        int ultimaFilaDatos = rowNum - 1;
         Row totalRow = sheet.createRow(rowNum++);
 
         // Celda de "TOTALES GENERALES"
@@ -481,26 +474,17 @@ public class ExcelGeneratorService {
         labelCell.setCellValue("TOTALES GENERALES:");
         labelCell.setCellStyle(totalStyle);
 
-        // Subtotal
-        Cell subtotalCell = totalRow.createCell(6);
-        subtotalCell.setCellValue(subtotal.doubleValue());
-        subtotalCell.setCellStyle(currencyStyle);
-
-        // IGV
-        Cell igvCell = totalRow.createCell(7);
-        igvCell.setCellValue(igv.doubleValue());
-        igvCell.setCellStyle(currencyStyle);
-
-        // Total
-        Cell totalCell = totalRow.createCell(8);
-        totalCell.setCellValue(total.doubleValue());
-        totalCell.setCellStyle(currencyStyle);
+        // Subtotal, IGV y Total
+        celdaSuma(totalRow, 6, primeraFilaDatos, ultimaFilaDatos, sumar(pagos, ReportePagosDto::subtotal), currencyStyle);
+        celdaSuma(totalRow, 7, primeraFilaDatos, ultimaFilaDatos, sumar(pagos, ReportePagosDto::igv), currencyStyle);
+        celdaSuma(totalRow, 8, primeraFilaDatos, ultimaFilaDatos, sumar(pagos, ReportePagosDto::total), currencyStyle);
 
         return rowNum;
     }
 
     private int agregarTotalesUsoVehiculos(Sheet sheet, CellStyle totalStyle, CellStyle currencyStyle,
-                                           BigDecimal totalRecaudado, int totalDias, int totalContratos, int rowNum, int numColumns) {
+                                           List<ReporteUsoVehiculosDto> usoVehiculos, int primeraFilaDatos, int rowNum) {
+        int ultimaFilaDatos = rowNum - 1;
         Row totalRow = sheet.createRow(rowNum++);
 
         // Celda de "TOTALES GENERALES"
@@ -509,30 +493,26 @@ public class ExcelGeneratorService {
         labelCell.setCellStyle(totalStyle);
 
         // Total Recaudado
-        Cell recaudadoCell = totalRow.createCell(6);
-        recaudadoCell.setCellValue(totalRecaudado.doubleValue());
-        recaudadoCell.setCellStyle(currencyStyle);
+        celdaSuma(totalRow, 6, primeraFilaDatos, ultimaFilaDatos,
+                sumar(usoVehiculos, ReporteUsoVehiculosDto::totalRecaudado), currencyStyle);
 
-        // Estadísticas adicionales en siguiente fila
+        // Estadísticas adicionales en siguiente fila: días alquilados y cantidad de contratos
         Row statsRow = sheet.createRow(rowNum++);
         Cell statsLabelCell = statsRow.createCell(5);
         statsLabelCell.setCellValue("ESTADÍSTICAS:");
         statsLabelCell.setCellStyle(totalStyle);
 
-        Cell diasCell = statsRow.createCell(6);
-        diasCell.setCellValue(totalDias);
-        diasCell.setCellStyle(totalStyle);
-
-        Cell contratosCell = statsRow.createCell(7);
-        contratosCell.setCellValue(totalContratos);
-        contratosCell.setCellStyle(totalStyle);
+        celdaSumaColumna(statsRow, 6, 4, primeraFilaDatos, ultimaFilaDatos,
+                sumarEnteros(usoVehiculos, ReporteUsoVehiculosDto::totalDiasAlquilados), totalStyle);
+        celdaSumaColumna(statsRow, 7, 5, primeraFilaDatos, ultimaFilaDatos,
+                sumarEnteros(usoVehiculos, ReporteUsoVehiculosDto::cantidadContratos), totalStyle);
 
         return rowNum;
     }
 
     private int agregarTotalesIngresos(Sheet sheet, CellStyle totalStyle, CellStyle currencyStyle,
-                                       BigDecimal totalIngresos, BigDecimal totalIgv, int totalContratos,
-                                       int totalClientes, int totalVehiculos, int rowNum, int numColumns) {
+                                       List<ReporteIngresosDto> ingresos, int primeraFilaDatos, int rowNum) {
+        int ultimaFilaDatos = rowNum - 1;
         Row totalRow = sheet.createRow(rowNum++);
 
         // Celda de "TOTALES GENERALES"
@@ -540,15 +520,11 @@ public class ExcelGeneratorService {
         labelCell.setCellValue("TOTALES GENERALES:");
         labelCell.setCellStyle(totalStyle);
 
-        // Total Ingresos
-        Cell ingresosCell = totalRow.createCell(2);
-        ingresosCell.setCellValue(totalIngresos.doubleValue());
-        ingresosCell.setCellStyle(currencyStyle);
-
-        // IGV
-        Cell igvCell = totalRow.createCell(4);
-        igvCell.setCellValue(totalIgv.doubleValue());
-        igvCell.setCellStyle(currencyStyle);
+        // Total Ingresos e IGV
+        celdaSuma(totalRow, 2, primeraFilaDatos, ultimaFilaDatos,
+                sumar(ingresos, ReporteIngresosDto::totalIngresos), currencyStyle);
+        celdaSuma(totalRow, 4, primeraFilaDatos, ultimaFilaDatos,
+                sumar(ingresos, ReporteIngresosDto::igvRecaudado), currencyStyle);
 
         // Estadísticas adicionales en siguiente fila
         Row statsRow = sheet.createRow(rowNum++);
@@ -556,19 +532,75 @@ public class ExcelGeneratorService {
         statsLabelCell.setCellValue("ESTADÍSTICAS:");
         statsLabelCell.setCellStyle(totalStyle);
 
-        Cell contratosCell = statsRow.createCell(2);
-        contratosCell.setCellValue(totalContratos);
-        contratosCell.setCellStyle(totalStyle);
+        celdaSumaColumna(statsRow, 2, 1, primeraFilaDatos, ultimaFilaDatos,
+                sumarEnteros(ingresos, ReporteIngresosDto::totalContratos), totalStyle);
+        celdaSuma(statsRow, 5, primeraFilaDatos, ultimaFilaDatos,
+                sumarEnteros(ingresos, ReporteIngresosDto::cantidadClientes), totalStyle);
+        celdaSuma(statsRow, 6, primeraFilaDatos, ultimaFilaDatos,
+                sumarEnteros(ingresos, ReporteIngresosDto::cantidadVehiculosUtilizados), totalStyle);
 
-        Cell clientesCell = statsRow.createCell(5);
-        clientesCell.setCellValue(totalClientes);
-        clientesCell.setCellStyle(totalStyle);
+        return rowNum;
+    }
 
-        Cell vehiculosCell = statsRow.createCell(6);
-        vehiculosCell.setCellValue(totalVehiculos);
-        vehiculosCell.setCellStyle(totalStyle);
+    // Fórmula SUM sobre la misma columna de las filas de datos, con el total ya calculado como
+    // valor en caché (vistas previas, LibreOffice o lectores sin motor de fórmulas lo muestran tal cual)
+    private void celdaSuma(Row row, int column, int primeraFila, int ultimaFila, double total, CellStyle style) {
+        celdaSumaColumna(row, column, column, primeraFila, ultimaFila, total, style);
+    }
 
-        return rowNum;
+    private void celdaSumaColumna(Row row, int column, int columnaDatos, int primeraFila, int ultimaFila,
+                                  double total, CellStyle style) {
+        Cell cell = row.createCell(column);
+        if (ultimaFila >= primeraFila) {
+            cell.setCellFormula("SUM(" + new CellRangeAddress(primeraFila, ultimaFila, columnaDatos, columnaDatos)
+                    .formatAsString() + ")");
+        }
+        // En una celda con fórmula fija el resultado en caché
+        cell.setCellValue(total);
+        cell.setCellStyle(style);
+    }
+
+    // Mismas conversiones que las celdas de datos (nulos como 0), sumadas en el mismo orden
+    private static <T> double sumar(List<T> filas, Function<T, BigDecimal> valor) {
+        double total = 0.0;
+        for (T fila : filas) {
+            BigDecimal monto = valor.apply(fila);
+            total += monto != null ? monto.doubleValue() : 0.0;
+        }
+        return total;
+    }
+
+    private static <T> double sumarEnteros(List<T> filas, Function<T, Integer> valor) {
+        long total = 0;
+        for (T fila : filas) {
+            Integer cantidad = valor.apply(fila);
+            total += cantidad != null ? cantidad : 0;
+        }
+        return total;
+    }
+
+    private void celdaMoneda(Row row, int column, BigDecimal valor, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(valor != null ? valor.doubleValue() : 0.0);
+        cell.setCellStyle(style);
+    }
+
+    private void ajustarColumnas(Sheet sheet, int numColumns, int filasDatos) {
+        for (int i = 0; i < numColumns; i++) {
+            if (filasDatos <= MAXIMO_FILAS_AUTOAJUSTE) {
+                sheet.autoSizeColumn(i);
+            } else {
+                sheet.setColumnWidth(i, ANCHO_COLUMNA_FIJO);
+            }
+        }
+    }
+
+    private int tamanioInicial(int filas) {
+        return BYTES_BASE_ARCHIVO + Math.min(filas, 1_000_000) * BYTES_POR_FILA;
+    }
+
+    private String fechaGeneracion() {
+        return java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER);
     }
 
     private void cellSegura(Row row, int column, String valor) {
@@ -585,4 +617,13 @@ public class ExcelGeneratorService {
         Cell cell = row.createCell(column);
         cell.setCellValue(valor != null ? valor : 0.0);
     }
+
+    @FunctionalInterface
+    private interface LlenadoLibro {
+        void llenar(SXSSFWorkbook workbook, Estilos estilos);
+    }
+
+    private record Estilos(CellStyle header, CellStyle titulo, CellStyle subtitulo, CellStyle total,
+                           CellStyle moneda, CellStyle porcentaje, CellStyle fecha, CellStyle dia,
+                           CellStyle mes) {}
 }
@@ -0,0 +1,86 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Genera de madrugada, y al cierre de cada mes, los reportes de períodos cerrados que se piden
+ * todas las mañanas (pagos y uso de vehículos del mes anterior), para que las primeras
+ * solicitudes del día se sirvan desde la caché sin golpear a msvc-contratos. La vigencia de la
+ * caché supera un día, así que cada entrada sigue vigente hasta el precálculo siguiente. Los
+ * reportes que llegan hasta hoy no se precalculan: la caché los conserva poco tiempo y se arman
+ * desde los resúmenes consolidados (instantánea de uso diario e ingresos de meses cerrados),
+ * consultando en vivo solo los días pendientes.
+ */
+@Service
+@Slf4j
+public class PrecalculoReportesService {
+
+    private final ReporteArchivoService reporteArchivoService;
+    private final UsoVehiculoDiarioService usoDiarioService;
+    private final TaskScheduler taskScheduler;
+
+    public PrecalculoReportesService(ReporteArchivoService reporteArchivoService,
+                                     UsoVehiculoDiarioService usoDiarioService,
+                                     TaskScheduler taskScheduler) {
+        this.reporteArchivoService = reporteArchivoService;
+        this.usoDiarioService = usoDiarioService;
+        this.taskScheduler = taskScheduler;
+    }
+
+    // Tras un despliegue la instantánea de uso se pone al día en el planificador, sin esperar a la
+    // madrugada; la primera vez es la carga inicial completa y no debe correr en una solicitud
+    @EventListener(ApplicationReadyEvent.class)
+    public void consolidarAlIniciar() {
+        taskScheduler.schedule(() -> ejecutar("consolidación inicial de uso diario", usoDiarioService::consolidar),
+                Instant.now());
+    }
+
+    @Scheduled(cron = "${reportes.precalculo.cron:0 0 3 * * *}")
+    public void precalcularNocturno() {
+        log.info("Iniciando precálculo nocturno de reportes");
+        precalcularReportesEstandar();
+    }
+
+    // Al abrir un mes el mes anterior queda cerrado: se regeneran sus reportes con los datos definitivos
+    @Scheduled(cron = "${reportes.precalculo.cierre-periodo.cron:0 15 0 1 * *}")
+    public void precalcularCierrePeriodo() {
+        log.info("Iniciando precálculo de reportes por cierre de período");
+        precalcularReportesEstandar();
+    }
+
+    public void precalcularReportesEstandar() {
+        LocalDate hoy = LocalDate.now();
+        YearMonth mesAnterior = YearMonth.from(hoy).minusMonths(1);
+
+        ejecutar("consolidación de uso diario", usoDiarioService::consolidar);
+        ejecutar("uso de vehículos " + mesAnterior,
+                () -> reporteArchivoService.obtenerExcelUsoVehiculos(mesAnterior.atDay(1), mesAnterior.atEndOfMonth(), true));
+        ejecutar("pagos " + mesAnterior,
+                () -> reporteArchivoService.obtenerExcelPagos(mesAnterior.atDay(1), mesAnterior.atEndOfMonth(), true));
+    }
+
+    // Un reporte que falla no impide precalcular los demás
+    private void ejecutar(String descripcion, Tarea tarea) {
+        long inicio = System.currentTimeMillis();
+        try {
+            tarea.ejecutar();
+            log.info("Precálculo de {} completado en {} ms", descripcion, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error en precálculo de {}: {}", descripcion, e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar() throws Exception;
+    }
+}
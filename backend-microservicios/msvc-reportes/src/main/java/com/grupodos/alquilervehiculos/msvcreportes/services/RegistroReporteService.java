@@ -0,0 +1,117 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import com.grupodos.alquilervehiculos.msvcreportes.repositories.ReporteRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de auditoría de los reportes generados. El hilo de la solicitud solo encola el
+ * registro; un hilo escritor en segundo plano los inserta por lotes (con batching JDBC de
+ * Hibernate). Si la cola está llena el registro se descarta: la auditoría nunca retrasa ni
+ * hace fallar un reporte. Al apagar la aplicación se guarda lo que quede en la cola.
+ */
+@Service
+@Slf4j
+public class RegistroReporteService {
+
+    private static final int MAXIMO_LOTE = 100;
+    private static final long ESPERA_ESCRITOR_MS = 500;
+
+    private final ReporteRepository reporteRepository;
+    private final MetricasReporte metricasReporte;
+    private final BlockingQueue<Reporte> pendientes;
+    private final Thread escritor;
+    private volatile boolean activo = true;
+
+    public RegistroReporteService(ReporteRepository reporteRepository, MetricasReporte metricasReporte,
+                                  @Value("${reportes.auditoria.capacidad-cola:10000}") int capacidadCola) {
+        this.reporteRepository = reporteRepository;
+        this.metricasReporte = metricasReporte;
+        this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+        this.escritor = new Thread(this::escribirPendientes, "reportes-auditoria");
+        this.escritor.setDaemon(true);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        metricasReporte.registrarColaAuditoria(pendientes);
+        escritor.start();
+    }
+
+    // Encola el registro pendiente de la medición; nunca bloquea ni lanza excepción
+    public void guardar(MedicionReporte medicion) {
+        Reporte registro = medicion.getRegistro();
+        metricasReporte.contarGenerado(medicion.getTipoReporte());
+        if (registro == null) {
+            return;
+        }
+
+        medicion.aplicar(registro);
+        if (!pendientes.offer(registro)) {
+            metricasReporte.contarAuditoriaDescartada();
+            log.warn("Cola de auditoría llena; se descarta el registro del reporte {}", medicion.getTipoReporte());
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        activo = false;
+        escritor.interrupt();
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Lo que el escritor no alcanzó a guardar se inserta aquí, antes de cerrar el datasource
+        List<Reporte> lote = new ArrayList<>(MAXIMO_LOTE);
+        while (pendientes.drainTo(lote, MAXIMO_LOTE) > 0) {
+            insertar(lote);
+        }
+        log.info("Escritor de auditoría de reportes detenido");
+    }
+
+    private void escribirPendientes() {
+        List<Reporte> lote = new ArrayList<>(MAXIMO_LOTE);
+        while (activo) {
+            try {
+                Reporte primero = pendientes.poll(ESPERA_ESCRITOR_MS, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                pendientes.drainTo(lote, MAXIMO_LOTE - 1);
+                insertar(lote);
+            } catch (InterruptedException e) {
+                // detener() vacía la cola en el hilo que apaga la aplicación
+                return;
+            }
+        }
+    }
+
+    private void insertar(List<Reporte> lote) {
+        long inicio = System.nanoTime();
+        try {
+            reporteRepository.saveAll(lote);
+            metricasReporte.registrarLoteAuditoria(lote.size(), System.nanoTime() - inicio);
+            log.debug("Lote de {} registros de reporte guardado", lote.size());
+        } catch (Exception e) {
+            log.error("Error guardando lote de {} registros de reporte: {}", lote.size(), e.getMessage());
+            // No se reintenta: la auditoría no debe acumular registros sin límite
+        } finally {
+            lote.clear();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.clients.ContratoFeignClient;
+import com.grupodos.alquilervehiculos.msvcreportes.clients.VehiculoFeignClient;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.*;
+import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import com.grupodos.alquilervehiculos.msvcreportes.exceptions.FeignClientException;
+import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteGenerationException;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reporte anual consolidado: ingresos mensuales, pagos y uso de vehículos del año en un solo
+ * Excel. Contratos, comprobantes y vehículos se piden una sola vez y se reutilizan para las tres
+ * hojas, en lugar de que cada reporte vuelva a consultar los mismos datos del año.
+ */
+@Service
+@Slf4j
+public class ReporteAnualService {
+
+    private final ContratoFeignClient contratoClient;
+    private final VehiculoFeignClient vehiculoClient;
+    private final ReporteIngresosService reporteIngresosService;
+    private final ReportePagosService reportePagosService;
+    private final ReporteUsoVehiculosService reporteUsoVehiculosService;
+    private final ExcelGeneratorService excelGeneratorService;
+    private final RegistroReporteService registroReporteService;
+    private final MetricasReporte metricasReporte;
+
+    public ReporteAnualService(ContratoFeignClient contratoClient,
+                               VehiculoFeignClient vehiculoClient,
+                               ReporteIngresosService reporteIngresosService,
+                               ReportePagosService reportePagosService,
+                               ReporteUsoVehiculosService reporteUsoVehiculosService,
+                               ExcelGeneratorService excelGeneratorService,
+                               RegistroReporteService registroReporteService,
+                               MetricasReporte metricasReporte) {
+        this.contratoClient = contratoClient;
+        this.vehiculoClient = vehiculoClient;
+        this.reporteIngresosService = reporteIngresosService;
+        this.reportePagosService = reportePagosService;
+        this.reporteUsoVehiculosService = reporteUsoVehiculosService;
+        this.excelGeneratorService = excelGeneratorService;
+        this.registroReporteService = registroReporteService;
+        this.metricasReporte = metricasReporte;
+    }
+
+    public byte[] generarReporteAnualExcel(Integer anio) {
+        log.info("Generando reporte anual consolidado para el año {}", anio);
+
+        validarAnio(anio);
+
+        // El año en curso se reporta hasta hoy
+        LocalDate fechaInicio = LocalDate.of(anio, 1, 1);
+        LocalDate finDeAnio = LocalDate.of(anio, 12, 31);
+        LocalDate fechaFin = finDeAnio.isAfter(LocalDate.now()) ? LocalDate.now() : finDeAnio;
+
+        MedicionReporte medicion = metricasReporte.iniciar("ANUAL_CONSOLIDADO");
+
+        try {
+            RangoFechasRequest request = new RangoFechasRequest(fechaInicio, fechaFin);
+
+            List<ContratoDto> contratos = noNula(medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerContratosPorRangoFechas(request)));
+            List<ComprobanteDto> comprobantes = noNula(medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerComprobantesPorRangoFechas(request)));
+            List<VehiculoDto> vehiculos = noNula(medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    vehiculoClient::obtenerVehiculosParaReportes));
+
+            log.debug("Datos del año {}: {} contratos, {} comprobantes, {} vehículos",
+                    anio, contratos.size(), comprobantes.size(), vehiculos.size());
+
+            List<ReporteIngresosDto> ingresos = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> reporteIngresosService.calcularIngresosMensuales(anio, contratos, comprobantes));
+
+            List<ReportePagosDto> pagos = new ArrayList<>(comprobantes.size());
+            if (!comprobantes.isEmpty()) {
+                medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                        () -> reportePagosService.armarReportePagos(comprobantes, contratos, pagos::add));
+            }
+
+            List<ReporteUsoVehiculosDto> usoVehiculos = contratos.isEmpty() || vehiculos.isEmpty()
+                    ? Collections.emptyList()
+                    : medicion.medir(MedicionReporte.Etapa.AGREGACION, () -> reporteUsoVehiculosService
+                            .armarReporteUsoVehiculos(contratos, vehiculos, fechaInicio, fechaFin));
+            medicion.filas(ingresos.size() + pagos.size() + usoVehiculos.size());
+
+            byte[] archivo = medicion.medir(MedicionReporte.Etapa.GENERACION, () -> generarExcel(anio, ingresos, pagos, usoVehiculos));
+            medicion.bytes(archivo.length);
+
+            medicion.setRegistro(crearRegistroReporte(anio, ingresos.size(), pagos.size(), usoVehiculos.size()));
+            registroReporteService.guardar(medicion);
+
+            log.info("Reporte anual {} generado ({} meses, {} pagos, {} vehículos)",
+                    anio, ingresos.size(), pagos.size(), usoVehiculos.size());
+            return archivo;
+
+        } catch (FeignException e) {
+            log.error("Error Feign generando reporte anual: status={}, message={}", e.status(), e.getMessage());
+            String servicio = e.request() != null && e.request().url().contains("vehiculos")
+                    ? "msvc-vehiculos" : "msvc-contratos";
+            throw new FeignClientException(servicio, "Error al obtener datos para reporte anual", e.status());
+        } catch (ReporteGenerationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error generando reporte anual: {}", e.getMessage(), e);
+            throw new ReporteGenerationException("Error al generar reporte anual: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] generarExcel(Integer anio, List<ReporteIngresosDto> ingresos, List<ReportePagosDto> pagos,
+                                List<ReporteUsoVehiculosDto> usoVehiculos) {
+        try {
+            return excelGeneratorService.generarReporteAnualExcel(anio, ingresos, pagos, usoVehiculos);
+        } catch (IOException e) {
+            throw new ReporteGenerationException("Error generando archivo Excel anual", e);
+        }
+    }
+
+    private static <T> List<T> noNula(List<T> lista) {
+        return lista != null ? lista : Collections.emptyList();
+    }
+
+    private void validarAnio(Integer anio) {
+        if (anio == null) {
+            throw new IllegalArgumentException("El año es requerido");
+        }
+        if (anio < 2020) {
+            throw new IllegalArgumentException("El año debe ser 2020 o posterior");
+        }
+        if (anio > LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("El año no puede ser posterior al año en curso");
+        }
+    }
+
+    private Reporte crearRegistroReporte(Integer anio, int meses, int pagos, int vehiculos) {
+        Reporte registro = new Reporte();
+        registro.setTipoReporte("ANUAL_CONSOLIDADO");
+        registro.setFormato("EXCEL");
+        registro.setNombreArchivo("reporte-anual-" + anio + ".xlsx");
+        registro.setGeneradoPor("SISTEMA");
+        registro.setParametros("Año: " + anio + ", Meses con datos: " + meses
+                + ", Pagos: " + pagos + ", Vehículos: " + vehiculos);
+        registro.setFechaGeneracion(LocalDateTime.now());
+        return registro;
+    }
+}
@@ -0,0 +1,159 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteIngresosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReporteUsoVehiculosDto;
+import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.cache.ReporteCache;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Archivos Excel de los reportes, servidos desde la caché de resultados cuando ya fueron generados.
+// Un archivo servido desde la caché también queda en la auditoría, marcado con su origen.
+@Service
+@Slf4j
+public class ReporteArchivoService {
+
+    private final ReportePagosService reportePagosService;
+    private final ReporteUsoVehiculosService reporteUsoVehiculosService;
+    private final ReporteIngresosService reporteIngresosService;
+    private final ReporteAnualService reporteAnualService;
+    private final ExcelGeneratorService excelGeneratorService;
+    private final ReporteCache reporteCache;
+    private final RegistroReporteService registroReporteService;
+    private final MetricasReporte metricasReporte;
+
+    public ReporteArchivoService(ReportePagosService reportePagosService,
+                                 ReporteUsoVehiculosService reporteUsoVehiculosService,
+                                 ReporteIngresosService reporteIngresosService,
+                                 ReporteAnualService reporteAnualService,
+                                 ExcelGeneratorService excelGeneratorService,
+                                 ReporteCache reporteCache,
+                                 RegistroReporteService registroReporteService,
+                                 MetricasReporte metricasReporte) {
+        this.reportePagosService = reportePagosService;
+        this.reporteUsoVehiculosService = reporteUsoVehiculosService;
+        this.reporteIngresosService = reporteIngresosService;
+        this.reporteAnualService = reporteAnualService;
+        this.excelGeneratorService = excelGeneratorService;
+        this.reporteCache = reporteCache;
+        this.registroReporteService = registroReporteService;
+        this.metricasReporte = metricasReporte;
+    }
+
+    public byte[] obtenerExcelPagos(LocalDate fechaInicio, LocalDate fechaFin, boolean recalcular) throws IOException {
+        return obtener(clave("PAGOS", fechaInicio, fechaFin), fechaFin, recalcular,
+                registroDesdeCache("PAGOS", "reporte-pagos-" + fechaInicio + "-a-" + fechaFin + ".xlsx",
+                        "FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin), () -> {
+            MedicionReporte medicion = metricasReporte.iniciar("PAGOS");
+            List<ReportePagosDto> datos = reportePagosService.generarReportePagos(fechaInicio, fechaFin, medicion);
+            return generar(medicion, () -> excelGeneratorService.generarReportePagosExcel(datos,
+                    "Reporte de Pagos - " + fechaInicio + " a " + fechaFin));
+        });
+    }
+
+    public byte[] obtenerExcelUsoVehiculos(LocalDate fechaInicio, LocalDate fechaFin, boolean recalcular) throws IOException {
+        return obtener(clave("USO_VEHICULOS", fechaInicio, fechaFin), fechaFin, recalcular,
+                registroDesdeCache("USO_VEHICULOS", "reporte-uso-vehiculos-" + fechaInicio + "-a-" + fechaFin + ".xlsx",
+                        "FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin), () -> {
+            MedicionReporte medicion = metricasReporte.iniciar("USO_VEHICULOS");
+            List<ReporteUsoVehiculosDto> datos =
+                    reporteUsoVehiculosService.generarReporteUsoVehiculos(fechaInicio, fechaFin, medicion);
+            return generar(medicion, () -> excelGeneratorService.generarReporteUsoVehiculosExcel(datos,
+                    "Reporte de Uso de Vehículos - " + fechaInicio + " a " + fechaFin));
+        });
+    }
+
+    public byte[] obtenerExcelIngresosMensuales(Integer anio, boolean recalcular) throws IOException {
+        return obtener("EXCEL:INGRESOS_MENSUALES:" + anio, finDeAnio(anio), recalcular,
+                registroDesdeCache("INGRESOS_MENSUALES", "reporte-ingresos-mensuales-" + anio + ".xlsx",
+                        "Año: " + anio), () -> {
+            MedicionReporte medicion = metricasReporte.iniciar("INGRESOS_MENSUALES");
+            List<ReporteIngresosDto> datos = reporteIngresosService.generarReporteIngresosMensuales(anio, medicion);
+            return generar(medicion, () -> excelGeneratorService.generarReporteIngresosExcel(datos,
+                    "Reporte de Ingresos Mensuales - Año " + anio));
+        });
+    }
+
+    public byte[] obtenerExcelAnual(Integer anio, boolean recalcular) throws IOException {
+        return obtener("EXCEL:ANUAL:" + anio, finDeAnio(anio), recalcular,
+                registroDesdeCache("ANUAL_CONSOLIDADO", "reporte-anual-" + anio + ".xlsx", "Año: " + anio),
+                () -> reporteAnualService.generarReporteAnualExcel(anio));
+    }
+
+    private byte[] obtener(String clave, LocalDate finPeriodo, boolean recalcular, MedicionReporte desdeCache,
+                           Supplier<byte[]> calculo) throws IOException {
+        AtomicBoolean generado = new AtomicBoolean();
+        Supplier<byte[]> generacion = () -> {
+            generado.set(true);
+            return calculo.get();
+        };
+
+        byte[] archivo;
+        try {
+            archivo = recalcular
+                    ? reporteCache.recalcular(clave, finPeriodo, generacion)
+                    : reporteCache.obtener(clave, finPeriodo, generacion);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Si se generó, la auditoría ya la guardó la propia generación
+        if (!generado.get()) {
+            desdeCache.bytes(archivo.length);
+            registroReporteService.guardar(desdeCache);
+        }
+        return archivo;
+    }
+
+    private MedicionReporte registroDesdeCache(String tipoReporte, String nombreArchivo, String parametros) {
+        Reporte registro = new Reporte();
+        registro.setTipoReporte(tipoReporte);
+        registro.setFormato("EXCEL");
+        registro.setNombreArchivo(nombreArchivo);
+        registro.setGeneradoPor("SISTEMA");
+        registro.setParametros(parametros + ", Origen: caché");
+        registro.setFechaGeneracion(LocalDateTime.now());
+
+        MedicionReporte medicion = metricasReporte.iniciar(tipoReporte);
+        medicion.setRegistro(registro);
+        return medicion;
+    }
+
+    private LocalDate finDeAnio(Integer anio) {
+        return LocalDate.of(anio, 12, 31);
+    }
+
+    // Genera el archivo y recién entonces guarda la auditoría, con el tiempo de generación y el tamaño
+    private byte[] generar(MedicionReporte medicion, GeneradorExcel generador) {
+        byte[] archivo = medicion.medir(MedicionReporte.Etapa.GENERACION, () -> {
+            try {
+                return generador.generar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        medicion.bytes(archivo.length);
+        registroReporteService.guardar(medicion);
+        return archivo;
+    }
+
+    private String clave(String tipo, LocalDate fechaInicio, LocalDate fechaFin) {
+        return "EXCEL:" + tipo + ":" + fechaInicio + ":" + fechaFin;
+    }
+
+    @FunctionalInterface
+    private interface GeneradorExcel {
+        byte[] generar() throws IOException;
+    }
+}
@@ -5,28 +5,33 @@ import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteNotFoundExc
 import com.grupodos.alquilervehiculos.msvcreportes.repositories.ReporteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class ReporteConsultaService {
     private static final Logger logger = LoggerFactory.getLogger(ReporteConsultaService.class);
 
+    private static final int TAMANIO_MAXIMO_PAGINA = 100;
+
     private final ReporteRepository reporteRepository;
 
     public ReporteConsultaService(ReporteRepository reporteRepository) {
         this.reporteRepository = reporteRepository;
     }
 
-    public List<Reporte> obtenerTodosLosReportes() {
-        logger.info("Obteniendo todos los reportes generados");
-        return reporteRepository.findAll();
+    public Page<Reporte> obtenerReportesPaginados(int pagina, int tamanio) {
+        logger.info("Obteniendo reportes generados, página {} de tamaño {}", pagina, tamanio);
+        return reporteRepository.findAll(paginaMasRecientes(pagina, tamanio));
     }
 
     public Optional<Reporte> obtenerReportePorId(UUID id) {
@@ -40,33 +45,33 @@ public class ReporteConsultaService {
         return reporte;
     }
 
-    public List<Reporte> obtenerReportesPorTipo(String tipoReporte) {
-        logger.info("Obteniendo reportes de tipo: {}", tipoReporte);
-        List<Reporte> todos = reporteRepository.findAll();
-        return todos.stream()
-                .filter(r -> r.getTipoReporte().equalsIgnoreCase(tipoReporte))
-                .collect(Collectors.toList());
+    public Page<Reporte> obtenerReportesPorTipo(String tipoReporte, int pagina, int tamanio) {
+        logger.info("Obteniendo reportes de tipo: {}, página {} de tamaño {}", tipoReporte, pagina, tamanio);
+        // Los tipos se registran en mayúsculas; normalizamos para usar el índice sin upper() en SQL
+        return reporteRepository.findByTipoReporte(tipoReporte.toUpperCase(Locale.ROOT),
+                paginaMasRecientes(pagina, tamanio));
     }
 
-    public List<Reporte> obtenerReportesPorRangoFechas(LocalDate desde, LocalDate hasta) {
-        logger.info("Obteniendo reportes desde {} hasta {}", desde, hasta);
+    public Page<Reporte> obtenerReportesPorRangoFechas(LocalDate desde, LocalDate hasta, int pagina, int tamanio) {
+        logger.info("Obteniendo reportes desde {} hasta {}, página {} de tamaño {}", desde, hasta, pagina, tamanio);
         LocalDateTime fechaDesde = desde.atStartOfDay();
         LocalDateTime fechaHasta = hasta.atTime(23, 59, 59);
 
-        List<Reporte> todos = reporteRepository.findAll();
-        return todos.stream()
-                .filter(r -> r.getFechaGeneracion() != null)
-                .filter(r -> !r.getFechaGeneracion().isBefore(fechaDesde) &&
-                        !r.getFechaGeneracion().isAfter(fechaHasta))
-                .collect(Collectors.toList());
+        return reporteRepository.findByFechaGeneracionBetween(fechaDesde, fechaHasta,
+                paginaMasRecientes(pagina, tamanio));
     }
 
     public List<Reporte> obtenerUltimosReportes(int cantidad) {
         logger.info("Obteniendo los últimos {} reportes", cantidad);
-        List<Reporte> todos = reporteRepository.findAll();
-        return todos.stream()
-                .sorted((r1, r2) -> r2.getFechaGeneracion().compareTo(r1.getFechaGeneracion()))
-                .limit(cantidad)
-                .collect(Collectors.toList());
+        int limite = Math.min(Math.max(cantidad, 1), TAMANIO_MAXIMO_PAGINA);
+        return reporteRepository.findAllByOrderByFechaGeneracionDesc(PageRequest.of(0, limite));
+    }
+
+    // Página acotada a TAMANIO_MAXIMO_PAGINA, con los reportes más recientes primero
+    private PageRequest paginaMasRecientes(int pagina, int tamanio) {
+        return PageRequest.of(
+                Math.max(pagina, 0),
+                Math.min(Math.max(tamanio, 1), TAMANIO_MAXIMO_PAGINA),
+                Sort.by(Sort.Direction.DESC, "fechaGeneracion"));
     }
 }
@@ -0,0 +1,193 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.*;
+import com.grupodos.alquilervehiculos.msvcreportes.services.agregacion.Agregador;
+import com.grupodos.alquilervehiculos.msvcreportes.services.cache.ReporteCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Datos JSON de los reportes para el frontend, paginados y ordenados en el servidor. El reporte
+ * completo y sus totales se calculan una vez y quedan en {@link ReporteCache}; pedir otra página
+ * u otro orden solo recorta (u ordena una vez por criterio) la lista ya calculada.
+ */
+@Service
+@Slf4j
+public class ReporteDatosService {
+
+    private static final int MAXIMO_TAMANIO_PAGINA = 500;
+
+    private static final Agregador<ReportePagosDto> AGREGADOR_PAGOS = new Agregador<>();
+    private static final Agregador.Suma SUBTOTAL = AGREGADOR_PAGOS.suma(ReportePagosDto::subtotal);
+    private static final Agregador.Suma IGV = AGREGADOR_PAGOS.suma(ReportePagosDto::igv);
+    private static final Agregador.Suma TOTAL = AGREGADOR_PAGOS.suma(ReportePagosDto::total);
+    private static final Agregador.Distintos<String> CLIENTES = AGREGADOR_PAGOS.distintos(ReportePagosDto::documentoCliente);
+
+    private static final Agregador<ReporteUsoVehiculosDto> AGREGADOR_USO = new Agregador<>();
+    private static final Agregador.Conteo CON_USO = AGREGADOR_USO.conteo(
+            uso -> uso.cantidadContratos() != null && uso.cantidadContratos() > 0);
+    private static final Agregador.SumaEntera DIAS = AGREGADOR_USO.sumaEntera(
+            uso -> uso.totalDiasAlquilados() != null ? uso.totalDiasAlquilados() : 0);
+    private static final Agregador.SumaEntera CONTRATOS = AGREGADOR_USO.sumaEntera(
+            uso -> uso.cantidadContratos() != null ? uso.cantidadContratos() : 0);
+    private static final Agregador.Suma RECAUDADO = AGREGADOR_USO.suma(ReporteUsoVehiculosDto::totalRecaudado);
+
+    private static final Map<String, Criterio<ReportePagosDto>> ORDEN_PAGOS = Map.of(
+            "numeroComprobante", campo(ReportePagosDto::numeroComprobante),
+            "fechaEmision", campo(ReportePagosDto::fechaEmision),
+            "tipoComprobante", campo(ReportePagosDto::tipoComprobante),
+            "cliente", campo(ReportePagosDto::cliente),
+            "subtotal", campo(ReportePagosDto::subtotal),
+            "igv", campo(ReportePagosDto::igv),
+            "total", campo(ReportePagosDto::total),
+            "estadoComprobante", campo(ReportePagosDto::estadoComprobante),
+            "codigoContrato", campo(ReportePagosDto::codigoContrato)
+    );
+
+    private static final Map<String, Criterio<ReporteUsoVehiculosDto>> ORDEN_USO_VEHICULOS = Map.of(
+            "placa", campo(ReporteUsoVehiculosDto::placa),
+            "marca", campo(ReporteUsoVehiculosDto::marca),
+            "modelo", campo(ReporteUsoVehiculosDto::modelo),
+            "tipoVehiculo", campo(ReporteUsoVehiculosDto::tipoVehiculo),
+            "totalDiasAlquilados", campo(ReporteUsoVehiculosDto::totalDiasAlquilados),
+            "cantidadContratos", campo(ReporteUsoVehiculosDto::cantidadContratos),
+            "totalRecaudado", campo(ReporteUsoVehiculosDto::totalRecaudado),
+            "porcentajeUso", campo(ReporteUsoVehiculosDto::porcentajeUso),
+            "ultimoAlquiler", campo(ReporteUsoVehiculosDto::ultimoAlquiler)
+    );
+
+    private final ReportePagosService reportePagosService;
+    private final ReporteUsoVehiculosService reporteUsoVehiculosService;
+    private final ReporteCache reporteCache;
+
+    public ReporteDatosService(ReportePagosService reportePagosService,
+                               ReporteUsoVehiculosService reporteUsoVehiculosService,
+                               ReporteCache reporteCache) {
+        this.reportePagosService = reportePagosService;
+        this.reporteUsoVehiculosService = reporteUsoVehiculosService;
+        this.reporteCache = reporteCache;
+    }
+
+    public PaginaReporteDto<ReportePagosDto, TotalesPagosDto> obtenerPaginaPagos(
+            LocalDate fechaInicio, LocalDate fechaFin, int pagina, int tamanio, String orden) {
+        validarPaginacion(pagina, tamanio);
+
+        ResultadoPaginable<ReportePagosDto, TotalesPagosDto> resultado = reporteCache.obtener(
+                clave("PAGOS", fechaInicio, fechaFin), fechaFin, () -> {
+                    List<ReportePagosDto> filas = reportePagosService.generarReportePagos(fechaInicio, fechaFin);
+                    Agregador.Resultado<ReportePagosDto> totales = AGREGADOR_PAGOS.agregar(filas);
+
+                    return new ResultadoPaginable<>(filas, new TotalesPagosDto(
+                            totales.cantidad(),
+                            totales.cantidad(CLIENTES),
+                            totales.valor(SUBTOTAL),
+                            totales.valor(IGV),
+                            totales.valor(TOTAL)));
+                });
+
+        return resultado.pagina(pagina, tamanio, orden, ORDEN_PAGOS);
+    }
+
+    public PaginaReporteDto<ReporteUsoVehiculosDto, TotalesUsoVehiculosDto> obtenerPaginaUsoVehiculos(
+            LocalDate fechaInicio, LocalDate fechaFin, int pagina, int tamanio, String orden) {
+        validarPaginacion(pagina, tamanio);
+
+        ResultadoPaginable<ReporteUsoVehiculosDto, TotalesUsoVehiculosDto> resultado = reporteCache.obtener(
+                clave("USO_VEHICULOS", fechaInicio, fechaFin), fechaFin, () -> {
+                    List<ReporteUsoVehiculosDto> filas =
+                            reporteUsoVehiculosService.generarReporteUsoVehiculos(fechaInicio, fechaFin);
+                    Agregador.Resultado<ReporteUsoVehiculosDto> totales = AGREGADOR_USO.agregar(filas);
+
+                    return new ResultadoPaginable<>(filas, new TotalesUsoVehiculosDto(
+                            totales.cantidad(),
+                            totales.valor(CON_USO),
+                            totales.valor(DIAS),
+                            totales.valor(CONTRATOS),
+                            totales.valor(RECAUDADO)));
+                });
+
+        return resultado.pagina(pagina, tamanio, orden, ORDEN_USO_VEHICULOS);
+    }
+
+    private void validarPaginacion(int pagina, int tamanio) {
+        if (pagina < 0) {
+            throw new IllegalArgumentException("El número de página no puede ser negativo");
+        }
+        if (tamanio < 1 || tamanio > MAXIMO_TAMANIO_PAGINA) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAXIMO_TAMANIO_PAGINA);
+        }
+    }
+
+    private String clave(String tipo, LocalDate fechaInicio, LocalDate fechaFin) {
+        return "PAGINABLE:" + tipo + ":" + fechaInicio + ":" + fechaFin;
+    }
+
+    // Nulos al final en ambos sentidos, como los muestra la tabla del frontend: el descendente se arma
+    // aparte porque invertir el ascendente los llevaría al principio
+    private static <T, C extends Comparable<? super C>> Criterio<T> campo(Function<? super T, C> extractor) {
+        return new Criterio<>(
+                Comparator.comparing(extractor, Comparator.nullsLast(Comparator.naturalOrder())),
+                Comparator.comparing(extractor, Comparator.nullsLast(Comparator.reverseOrder())));
+    }
+
+    private record Criterio<T>(Comparator<T> ascendente, Comparator<T> descendente) {}
+
+    /**
+     * Filas de un reporte calculado y sus totales. Cada criterio de orden ("campo,asc|desc") se
+     * ordena una sola vez y se conserva junto al resultado mientras éste siga en caché.
+     */
+    private static final class ResultadoPaginable<T, R> {
+
+        private final List<T> filas;
+        private final R totales;
+        private final Map<String, List<T>> ordenadas = new ConcurrentHashMap<>();
+
+        ResultadoPaginable(List<T> filas, R totales) {
+            this.filas = List.copyOf(filas);
+            this.totales = totales;
+        }
+
+        PaginaReporteDto<T, R> pagina(int pagina, int tamanio, String orden, Map<String, Criterio<T>> criterios) {
+            String criterio = normalizarOrden(orden, criterios);
+            List<T> lista = criterio == null ? filas : ordenadas.computeIfAbsent(criterio, c -> ordenar(c, criterios));
+
+            int desde = (int) Math.min((long) pagina * tamanio, lista.size());
+            int hasta = Math.min(desde + tamanio, lista.size());
+            int totalPaginas = (lista.size() + tamanio - 1) / tamanio;
+
+            return new PaginaReporteDto<>(new ArrayList<>(lista.subList(desde, hasta)), pagina, tamanio,
+                    lista.size(), totalPaginas, criterio, totales);
+        }
+
+        private List<T> ordenar(String criterio, Map<String, Criterio<T>> criterios) {
+            String[] partes = criterio.split(",");
+            Criterio<T> campo = criterios.get(partes[0]);
+            Comparator<T> comparador = "desc".equals(partes[1]) ? campo.descendente() : campo.ascendente();
+            return filas.stream().sorted(comparador).toList();
+        }
+
+        private static String normalizarOrden(String orden, Map<String, ?> criterios) {
+            if (orden == null || orden.isBlank()) {
+                return null;
+            }
+
+            String[] partes = orden.split(",");
+            String campo = partes[0].trim();
+            if (!criterios.containsKey(campo)) {
+                throw new IllegalArgumentException("No se puede ordenar por '" + campo + "'. Campos válidos: "
+                        + new TreeSet<>(criterios.keySet()));
+            }
+
+            String direccion = partes.length > 1 ? partes[1].trim().toLowerCase(Locale.ROOT) : "asc";
+            if (!direccion.equals("asc") && !direccion.equals("desc")) {
+                throw new IllegalArgumentException("La dirección de orden debe ser 'asc' o 'desc'");
+            }
+            return campo + "," + direccion;
+        }
+    }
+}
@@ -3,15 +3,21 @@ package com.grupodos.alquilervehiculos.msvcreportes.services;
 import com.grupodos.alquilervehiculos.msvcreportes.clients.ContratoFeignClient;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.*;
 import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import com.grupodos.alquilervehiculos.msvcreportes.entities.ResumenIngresoMensual;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.FeignClientException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.InvalidDateRangeException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteGenerationException;
-import com.grupodos.alquilervehiculos.msvcreportes.repositories.ReporteRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.repositories.ResumenIngresoMensualRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.services.agregacion.Agregador;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -20,99 +26,60 @@ import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ReporteIngresosService {
 
-    private final ContratoFeignClient contratoClient;
-    private final ReporteRepository reporteRepository;
+    private static final Agregador<ContratoDto> AGREGADOR_CONTRATOS = new Agregador<>();
+    private static final Agregador.Distintos<UUID> CLIENTES =
+            AGREGADOR_CONTRATOS.distintos(ContratoDto::idCliente);
+    private static final Agregador.Distintos<UUID> VEHICULOS =
+            AGREGADOR_CONTRATOS.distintosDeCada(ContratoDto::detalles, DetalleContratoDto::idVehiculo);
+
+    private static final Agregador<ComprobanteDto> AGREGADOR_COMPROBANTES = new Agregador<>();
+    private static final Agregador.Suma TOTAL_INGRESOS = AGREGADOR_COMPROBANTES.suma(ComprobanteDto::total);
+    private static final Agregador.Suma IGV_RECAUDADO = AGREGADOR_COMPROBANTES.suma(ComprobanteDto::igv);
 
-    public ReporteIngresosService(ContratoFeignClient contratoClient,  ReporteRepository reporteRepository) {
+    private final ContratoFeignClient contratoClient;
+    private final RegistroReporteService registroReporteService;
+    private final MetricasReporte metricasReporte;
+    private final ResumenIngresoMensualRepository resumenRepository;
+    private final int diasGraciaCierre;
+
+    public ReporteIngresosService(ContratoFeignClient contratoClient, RegistroReporteService registroReporteService,
+                                  MetricasReporte metricasReporte, ResumenIngresoMensualRepository resumenRepository,
+                                  @Value("${reportes.ingresos.dias-gracia-cierre:15}") int diasGraciaCierre) {
         this.contratoClient = contratoClient;
-        this.reporteRepository = reporteRepository;
+        this.registroReporteService = registroReporteService;
+        this.metricasReporte = metricasReporte;
+        this.resumenRepository = resumenRepository;
+        this.diasGraciaCierre = Math.max(diasGraciaCierre, 0);
     }
 
     public List<ReporteIngresosDto> generarReporteIngresosMensuales(Integer anio) {
+        MedicionReporte medicion = metricasReporte.iniciar("INGRESOS_MENSUALES");
+        List<ReporteIngresosDto> reporte = generarReporteIngresosMensuales(anio, medicion);
+        registroReporteService.guardar(medicion);
+        return reporte;
+    }
+
+    // Deja el registro de auditoría en la medición para que el llamador lo guarde al terminar el archivo
+    public List<ReporteIngresosDto> generarReporteIngresosMensuales(Integer anio, MedicionReporte medicion) {
         log.info("Generando reporte de ingresos mensuales para el año {}", anio);
 
         validarAnio(anio);
 
         try {
-            LocalDate fechaInicio = LocalDate.of(anio, 1, 1);
-            LocalDate fechaFin = LocalDate.of(anio, 12, 31);
+            // Los meses abiertos se recalculan con datos de msvc-contratos; los cerrados se leen persistidos
+            Map<Integer, ResumenIngresoMensual> resumenPorMes = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> obtenerResumenesActualizados(anio));
+            List<ReporteIngresosDto> reporte = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> armarReporteMensual(resumenPorMes));
+            medicion.filas(reporte.size());
 
-            RangoFechasRequest request = new RangoFechasRequest(fechaInicio, fechaFin);
-            List<ContratoDto> contratos = contratoClient.obtenerContratosPorRangoFechas(request);
-            List<ComprobanteDto> comprobantes = contratoClient.obtenerComprobantesPorRangoFechas(request);
-
-            // Agrupar por mes
-            Map<YearMonth, List<ContratoDto>> contratosPorMes = contratos.stream()
-                    .filter(contrato -> contrato.fechaCreacion() != null)
-                    .collect(Collectors.groupingBy(contrato ->
-                            YearMonth.from(contrato.fechaCreacion().toLocalDate())));
-
-            Map<YearMonth, List<ComprobanteDto>> comprobantesPorMes = comprobantes.stream()
-                    .filter(comprobante -> comprobante.fechaEmision() != null)
-                    .collect(Collectors.groupingBy(comprobante ->
-                            YearMonth.from(comprobante.fechaEmision().toLocalDate())));
-
-            List<ReporteIngresosDto> reporte = new ArrayList<>();
-
-            // Procesar cada mes del año
-            for (int mes = 1; mes <= 12; mes++) {
-                YearMonth yearMonth = YearMonth.of(anio, mes);
-
-                List<ContratoDto> contratosMes = contratosPorMes.getOrDefault(yearMonth, Collections.emptyList());
-                List<ComprobanteDto> comprobantesMes = comprobantesPorMes.getOrDefault(yearMonth, Collections.emptyList());
-
-                if (!contratosMes.isEmpty() || !comprobantesMes.isEmpty()) {
-                    BigDecimal totalIngresos = comprobantesMes.stream()
-                            .map(ComprobanteDto::total)
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal igvRecaudado = comprobantesMes.stream()
-                            .map(ComprobanteDto::igv)
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    int totalContratos = contratosMes.size();
-                    BigDecimal promedioPorContrato = totalContratos > 0 ?
-                            totalIngresos.divide(BigDecimal.valueOf(totalContratos), 2, RoundingMode.HALF_UP) :
-                            BigDecimal.ZERO;
-
-                    // Estadísticas adicionales
-                    long cantidadClientes = contratosMes.stream()
-                            .map(ContratoDto::idCliente)
-                            .filter(Objects::nonNull)
-                            .distinct()
-                            .count();
-
-                    long cantidadVehiculos = contratosMes.stream()
-                            .flatMap(contrato -> contrato.detalles().stream())
-                            .map(DetalleContratoDto::idVehiculo)
-                            .filter(Objects::nonNull)
-                            .distinct()
-                            .count();
-
-                    ReporteIngresosDto dto = new ReporteIngresosDto(
-                            yearMonth,
-                            totalContratos,
-                            totalIngresos,
-                            promedioPorContrato,
-                            igvRecaudado,
-                            (int) cantidadClientes,
-                            (int) cantidadVehiculos
-                    );
-
-                    reporte.add(dto);
-                }
-            }
-
-            // Guardar registro del reporte
-            guardarRegistroReporte(anio, reporte.size());
+            // Registro del reporte, pendiente de guardar con las métricas completas
+            medicion.setRegistro(crearRegistroReporte(anio, reporte.size()));
 
             log.info("Reporte de ingresos mensuales generado con {} meses con datos", reporte.size());
             return reporte;
@@ -126,6 +93,233 @@ public class ReporteIngresosService {
         }
     }
 
+    // Combina los resúmenes mensuales persistidos sin volver a leer contratos ni comprobantes
+    public List<ReporteIngresosTrimestralDto> generarReporteIngresosTrimestrales(Integer anio) {
+        log.info("Generando reporte de ingresos trimestrales para el año {}", anio);
+
+        validarAnio(anio);
+
+        MedicionReporte medicion = metricasReporte.iniciar("INGRESOS_TRIMESTRALES");
+
+        try {
+            Map<Integer, ResumenIngresoMensual> resumenPorMes = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> obtenerResumenesActualizados(anio));
+            List<ReporteIngresosTrimestralDto> reporte = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> armarReporteTrimestral(anio, resumenPorMes));
+
+            // Guardar registro del reporte
+            medicion.filas(reporte.size());
+            medicion.setRegistro(crearRegistroReporteTrimestral(anio, reporte.size()));
+            registroReporteService.guardar(medicion);
+
+            log.info("Reporte de ingresos trimestrales generado con {} trimestres con datos", reporte.size());
+            return reporte;
+
+        } catch (FeignException e) {
+            log.error("Error Feign generando reporte de ingresos trimestrales: status={}, message={}", e.status(), e.getMessage());
+            throw new FeignClientException("msvc-contratos", "Error al obtener datos para reporte de ingresos", e.status());
+        } catch (Exception e) {
+            log.error("Error generando reporte de ingresos trimestrales: {}", e.getMessage(), e);
+            throw new ReporteGenerationException("Error al generar reporte de ingresos trimestrales: " + e.getMessage(), e);
+        }
+    }
+
+    // Ingresos mensuales a partir de contratos y comprobantes del año ya obtenidos (sin registro de auditoría)
+    public List<ReporteIngresosDto> calcularIngresosMensuales(Integer anio, List<ContratoDto> contratos,
+                                                              List<ComprobanteDto> comprobantes) {
+        validarAnio(anio);
+
+        return armarReporteMensual(obtenerResumenesActualizados(anio, new DatosPeriodo(contratos, comprobantes)));
+    }
+
+    // Un registro por cada trimestre del año con al menos un mes con datos
+    private List<ReporteIngresosTrimestralDto> armarReporteTrimestral(Integer anio,
+                                                                      Map<Integer, ResumenIngresoMensual> resumenPorMes) {
+        List<ReporteIngresosTrimestralDto> reporte = new ArrayList<>();
+
+        for (int trimestre = 1; trimestre <= 4; trimestre++) {
+            int totalContratos = 0;
+            BigDecimal totalIngresos = BigDecimal.ZERO;
+            BigDecimal igvRecaudado = BigDecimal.ZERO;
+            Set<UUID> clientes = new HashSet<>();
+            Set<UUID> vehiculos = new HashSet<>();
+            boolean tieneDatos = false;
+
+            for (int mes = (trimestre - 1) * 3 + 1; mes <= trimestre * 3; mes++) {
+                ResumenIngresoMensual resumen = resumenPorMes.get(mes);
+                if (resumen == null || !resumen.tieneDatos()) {
+                    continue;
+                }
+
+                tieneDatos = true;
+                totalContratos += resumen.getTotalContratos();
+                totalIngresos = totalIngresos.add(resumen.getTotalIngresos());
+                igvRecaudado = igvRecaudado.add(resumen.getIgvRecaudado());
+                clientes.addAll(resumen.getClientesIds());
+                vehiculos.addAll(resumen.getVehiculosIds());
+            }
+
+            if (tieneDatos) {
+                reporte.add(new ReporteIngresosTrimestralDto(
+                        anio,
+                        trimestre,
+                        totalContratos,
+                        totalIngresos,
+                        calcularPromedio(totalIngresos, totalContratos),
+                        igvRecaudado,
+                        clientes.size(),
+                        vehiculos.size()
+                ));
+            }
+        }
+        return reporte;
+    }
+
+    // Un registro por cada mes del año con datos
+    private List<ReporteIngresosDto> armarReporteMensual(Map<Integer, ResumenIngresoMensual> resumenPorMes) {
+        List<ReporteIngresosDto> reporte = new ArrayList<>();
+        for (int mes = 1; mes <= 12; mes++) {
+            ResumenIngresoMensual resumen = resumenPorMes.get(mes);
+            if (resumen != null && resumen.tieneDatos()) {
+                reporte.add(mapearResumen(resumen));
+            }
+        }
+        return reporte;
+    }
+
+    private Map<Integer, ResumenIngresoMensual> obtenerResumenesActualizados(Integer anio) {
+        return obtenerResumenesActualizados(anio, null);
+    }
+
+    // Vuelve a abrir un mes ya cerrado (p. ej. tras anular un comprobante fuera del período de gracia);
+    // el siguiente reporte lo recalcula desde msvc-contratos
+    @Transactional
+    public boolean reabrirMes(Integer anio, Integer mes) {
+        validarAnio(anio);
+        if (mes == null || mes < 1 || mes > 12) {
+            throw new IllegalArgumentException("El mes debe estar entre 1 y 12");
+        }
+
+        boolean reabierto = resumenRepository.reabrir(anio, mes) > 0;
+        log.info("Resumen de ingresos {}-{} {}", anio, mes, reabierto ? "reabierto" : "sin cerrar");
+        return reabierto;
+    }
+
+    // Un mes se cierra cuando ha pasado el período de gracia tras su último día, para que las
+    // correcciones tardías (comprobantes anulados o emitidos con retraso) aún se recojan
+    private boolean estaCerrado(YearMonth yearMonth) {
+        return yearMonth.atEndOfMonth().plusDays(diasGraciaCierre).isBefore(LocalDate.now());
+    }
+
+    // Devuelve los resúmenes del año, recalculando solo los meses que siguen abiertos.
+    // Sin datos precargados, los meses abiertos se consultan en msvc-contratos
+    private Map<Integer, ResumenIngresoMensual> obtenerResumenesActualizados(Integer anio, DatosPeriodo precargados) {
+        Map<Integer, ResumenIngresoMensual> resumenPorMes = new HashMap<>();
+        for (ResumenIngresoMensual resumen : resumenRepository.findByAnioOrderByMesAsc(anio)) {
+            resumenPorMes.put(resumen.getMes(), resumen);
+        }
+
+        YearMonth mesActual = YearMonth.now();
+        List<YearMonth> mesesAbiertos = new ArrayList<>();
+
+        for (int mes = 1; mes <= 12; mes++) {
+            YearMonth yearMonth = YearMonth.of(anio, mes);
+            if (yearMonth.isAfter(mesActual)) {
+                break; // Meses futuros aún no tienen datos
+            }
+
+            ResumenIngresoMensual resumen = resumenPorMes.get(mes);
+            if (resumen == null || !Boolean.TRUE.equals(resumen.getCerrado())) {
+                mesesAbiertos.add(yearMonth);
+            }
+        }
+
+        if (!mesesAbiertos.isEmpty()) {
+            actualizarResumenes(mesesAbiertos, resumenPorMes, precargados);
+        }
+
+        return resumenPorMes;
+    }
+
+    private void actualizarResumenes(List<YearMonth> mesesAbiertos,
+                                     Map<Integer, ResumenIngresoMensual> resumenPorMes,
+                                     DatosPeriodo precargados) {
+        YearMonth primerMes = mesesAbiertos.get(0);
+        YearMonth ultimoMes = mesesAbiertos.get(mesesAbiertos.size() - 1);
+        log.debug("Actualizando resúmenes de ingresos abiertos de {} a {}", primerMes, ultimoMes);
+
+        List<ContratoDto> contratos;
+        List<ComprobanteDto> comprobantes;
+        if (precargados != null) {
+            // Los meses ya cerrados presentes en los datos se agrupan pero no se usan
+            contratos = precargados.contratos() != null ? precargados.contratos() : Collections.emptyList();
+            comprobantes = precargados.comprobantes() != null ? precargados.comprobantes() : Collections.emptyList();
+        } else {
+            RangoFechasRequest request = new RangoFechasRequest(primerMes.atDay(1), ultimoMes.atEndOfMonth());
+            contratos = contratoClient.obtenerContratosPorRangoFechas(request);
+            comprobantes = contratoClient.obtenerComprobantesPorRangoFechas(request);
+        }
+
+        // Una sola pasada por lista: agrupa por mes y calcula todas las métricas a la vez
+        Map<YearMonth, Agregador.Resultado<ContratoDto>> contratosPorMes = AGREGADOR_CONTRATOS.agregarPorGrupo(
+                contratos.stream().filter(contrato -> contrato.fechaCreacion() != null).toList(),
+                contrato -> YearMonth.from(contrato.fechaCreacion()));
+
+        Map<YearMonth, Agregador.Resultado<ComprobanteDto>> comprobantesPorMes = AGREGADOR_COMPROBANTES.agregarPorGrupo(
+                comprobantes.stream().filter(comprobante -> comprobante.fechaEmision() != null).toList(),
+                comprobante -> YearMonth.from(comprobante.fechaEmision()));
+
+        Agregador.Resultado<ContratoDto> sinContratos = AGREGADOR_CONTRATOS.agregar(Collections.emptyList());
+        Agregador.Resultado<ComprobanteDto> sinComprobantes = AGREGADOR_COMPROBANTES.agregar(Collections.emptyList());
+
+        List<ResumenIngresoMensual> actualizados = new ArrayList<>();
+
+        for (YearMonth yearMonth : mesesAbiertos) {
+            Agregador.Resultado<ContratoDto> contratosMes = contratosPorMes.getOrDefault(yearMonth, sinContratos);
+            Agregador.Resultado<ComprobanteDto> comprobantesMes = comprobantesPorMes.getOrDefault(yearMonth, sinComprobantes);
+
+            ResumenIngresoMensual resumen = resumenPorMes.computeIfAbsent(
+                    yearMonth.getMonthValue(), mes -> new ResumenIngresoMensual(yearMonth));
+
+            resumen.setTotalContratos((int) contratosMes.cantidad());
+            resumen.setTotalComprobantes((int) comprobantesMes.cantidad());
+            resumen.setTotalIngresos(comprobantesMes.valor(TOTAL_INGRESOS));
+            resumen.setIgvRecaudado(comprobantesMes.valor(IGV_RECAUDADO));
+            resumen.setClientesIds(new HashSet<>(contratosMes.valores(CLIENTES)));
+            resumen.setVehiculosIds(new HashSet<>(contratosMes.valores(VEHICULOS)));
+            resumen.setCerrado(estaCerrado(yearMonth));
+            resumen.setFechaActualizacion(LocalDateTime.now());
+
+            actualizados.add(resumen);
+        }
+
+        try {
+            resumenRepository.saveAll(actualizados);
+            log.debug("{} resúmenes mensuales de ingresos guardados", actualizados.size());
+        } catch (Exception e) {
+            log.error("Error guardando resúmenes mensuales de ingresos: {}", e.getMessage());
+            // El reporte se arma con los valores en memoria; se reintentará en la próxima consulta
+        }
+    }
+
+    private ReporteIngresosDto mapearResumen(ResumenIngresoMensual resumen) {
+        return new ReporteIngresosDto(
+                resumen.getPeriodo(),
+                resumen.getTotalContratos(),
+                resumen.getTotalIngresos(),
+                calcularPromedio(resumen.getTotalIngresos(), resumen.getTotalContratos()),
+                resumen.getIgvRecaudado(),
+                resumen.getClientesIds().size(),
+                resumen.getVehiculosIds().size()
+        );
+    }
+
+    private BigDecimal calcularPromedio(BigDecimal totalIngresos, int totalContratos) {
+        return totalContratos > 0 ?
+                totalIngresos.divide(BigDecimal.valueOf(totalContratos), 2, RoundingMode.HALF_UP) :
+                BigDecimal.ZERO;
+    }
+
     private void validarAnio(Integer anio) {
         if (anio == null) {
             throw new IllegalArgumentException("El año es requerido");
@@ -140,22 +334,26 @@ public class ReporteIngresosService {
         }
     }
 
-    private void guardarRegistroReporte(Integer anio, int cantidadMeses) {
-        try {
-            Reporte registroReporte = new Reporte();
-            registroReporte.setTipoReporte("INGRESOS_MENSUALES");
-            registroReporte.setFormato("EXCEL");
-            registroReporte.setNombreArchivo("reporte-ingresos-mensuales-" + anio + ".xlsx");
-            registroReporte.setFechaGeneracion(LocalDateTime.now());
-            registroReporte.setGeneradoPor("SISTEMA");
-            registroReporte.setParametros("Año: " + anio + ", Meses con datos: " + cantidadMeses);
-            reporteRepository.save(registroReporte);
-
-            log.debug("Registro de reporte de ingresos guardado exitosamente");
-        } catch (Exception e) {
-            log.error("Error guardando registro del reporte de ingresos: {}", e.getMessage());
-            // No lanzamos excepción para no afectar la generación del reporte principal
-        }
+    private Reporte crearRegistroReporte(Integer anio, int cantidadMeses) {
+        Reporte registroReporte = new Reporte();
+        registroReporte.setTipoReporte("INGRESOS_MENSUALES");
+        registroReporte.setFormato("EXCEL");
+        registroReporte.setNombreArchivo("reporte-ingresos-mensuales-" + anio + ".xlsx");
+        registroReporte.setFechaGeneracion(LocalDateTime.now());
+        registroReporte.setGeneradoPor("SISTEMA");
+        registroReporte.setParametros("Año: " + anio + ", Meses con datos: " + cantidadMeses);
+        return registroReporte;
+    }
+
+    private Reporte crearRegistroReporteTrimestral(Integer anio, int cantidadTrimestres) {
+        Reporte registroReporte = new Reporte();
+        registroReporte.setTipoReporte("INGRESOS_TRIMESTRALES");
+        registroReporte.setFormato("EXCEL");
+        registroReporte.setNombreArchivo("reporte-ingresos-trimestrales-" + anio + ".xlsx");
+        registroReporte.setFechaGeneracion(LocalDateTime.now());
+        registroReporte.setGeneradoPor("SISTEMA");
+        registroReporte.setParametros("Año: " + anio + ", Trimestres con datos: " + cantidadTrimestres);
+        return registroReporte;
     }
 
     // Método adicional para generar reporte de ingresos por rango de fechas específico
@@ -165,10 +363,14 @@ public class ReporteIngresosService {
         // Validar rango de fechas
         validarRangoFechas(fechaInicio, fechaFin);
 
+        MedicionReporte medicion = metricasReporte.iniciar("INGRESOS_RANGO");
+
         try {
             RangoFechasRequest request = new RangoFechasRequest(fechaInicio, fechaFin);
-            List<ContratoDto> contratos = contratoClient.obtenerContratosPorRangoFechas(request);
-            List<ComprobanteDto> comprobantes = contratoClient.obtenerComprobantesPorRangoFechas(request);
+            List<ContratoDto> contratos = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerContratosPorRangoFechas(request));
+            List<ComprobanteDto> comprobantes = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerComprobantesPorRangoFechas(request));
 
             log.debug("Contratos obtenidos: {}, Comprobantes obtenidos: {}",
                     contratos != null ? contratos.size() : "NULL",
@@ -179,35 +381,20 @@ public class ReporteIngresosService {
                 return Collections.emptyList();
             }
 
-            // Calcular totales generales para el período
-            BigDecimal totalIngresos = comprobantes.stream()
-                    .map(ComprobanteDto::total)
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal igvRecaudado = comprobantes.stream()
-                    .map(ComprobanteDto::igv)
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Calcular totales generales para el período en una sola pasada por lista
+            Agregador.Resultado<ComprobanteDto> totalesComprobantes = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> AGREGADOR_COMPROBANTES.agregar(comprobantes != null ? comprobantes : Collections.emptyList()));
+            Agregador.Resultado<ContratoDto> totalesContratos = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> AGREGADOR_CONTRATOS.agregar(contratos != null ? contratos : Collections.emptyList()));
 
-            int totalContratos = contratos.size();
-            BigDecimal promedioPorContrato = totalContratos > 0 ?
-                    totalIngresos.divide(BigDecimal.valueOf(totalContratos), 2, RoundingMode.HALF_UP) :
-                    BigDecimal.ZERO;
+            BigDecimal totalIngresos = totalesComprobantes.valor(TOTAL_INGRESOS);
+            BigDecimal igvRecaudado = totalesComprobantes.valor(IGV_RECAUDADO);
+            int totalContratos = (int) totalesContratos.cantidad();
+            BigDecimal promedioPorContrato = calcularPromedio(totalIngresos, totalContratos);
 
             // Estadísticas adicionales
-            long cantidadClientes = contratos.stream()
-                    .map(ContratoDto::idCliente)
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .count();
-
-            long cantidadVehiculos = contratos.stream()
-                    .flatMap(contrato -> contrato.detalles().stream())
-                    .map(DetalleContratoDto::idVehiculo)
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .count();
+            int cantidadClientes = totalesContratos.cantidad(CLIENTES);
+            int cantidadVehiculos = totalesContratos.cantidad(VEHICULOS);
 
             // Crear un solo registro para el período completo
             YearMonth periodo = YearMonth.from(fechaInicio);
@@ -218,13 +405,15 @@ public class ReporteIngresosService {
                             totalIngresos,
                             promedioPorContrato,
                             igvRecaudado,
-                            (int) cantidadClientes,
-                            (int) cantidadVehiculos
+                            cantidadClientes,
+                            cantidadVehiculos
                     )
             );
 
             // Guardar registro del reporte
-            guardarRegistroReporteRango(fechaInicio, fechaFin, totalContratos);
+            medicion.filas(reporte.size());
+            medicion.setRegistro(crearRegistroReporteRango(fechaInicio, fechaFin, totalContratos));
+            registroReporteService.guardar(medicion);
 
             log.info("Reporte de ingresos por rango generado con {} contratos", totalContratos);
             return reporte;
@@ -255,20 +444,16 @@ public class ReporteIngresosService {
         }
     }
 
-    private void guardarRegistroReporteRango(LocalDate fechaInicio, LocalDate fechaFin, int cantidadContratos) {
-        try {
-            Reporte registroReporte = new Reporte();
-            registroReporte.setTipoReporte("INGRESOS_RANGO");
-            registroReporte.setFormato("EXCEL");
-            registroReporte.setNombreArchivo("reporte-ingresos-" + fechaInicio + "-a-" + fechaFin + ".xlsx");
-            registroReporte.setFechaGeneracion(LocalDateTime.now());
-            registroReporte.setGeneradoPor("SISTEMA");
-            registroReporte.setParametros("FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin + ", Contratos: " + cantidadContratos);
-            reporteRepository.save(registroReporte);
-
-            log.debug("Registro de reporte de ingresos por rango guardado exitosamente");
-        } catch (Exception e) {
-            log.error("Error guardando registro del reporte de ingresos por rango: {}", e.getMessage());
-        }
+    private Reporte crearRegistroReporteRango(LocalDate fechaInicio, LocalDate fechaFin, int cantidadContratos) {
+        Reporte registroReporte = new Reporte();
+        registroReporte.setTipoReporte("INGRESOS_RANGO");
+        registroReporte.setFormato("EXCEL");
+        registroReporte.setNombreArchivo("reporte-ingresos-" + fechaInicio + "-a-" + fechaFin + ".xlsx");
+        registroReporte.setFechaGeneracion(LocalDateTime.now());
+        registroReporte.setGeneradoPor("SISTEMA");
+        registroReporte.setParametros("FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin + ", Contratos: " + cantidadContratos);
+        return registroReporte;
     }
+
+    private record DatosPeriodo(List<ContratoDto> contratos, List<ComprobanteDto> comprobantes) {}
 }
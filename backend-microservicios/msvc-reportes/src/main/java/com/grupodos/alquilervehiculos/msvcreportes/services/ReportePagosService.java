@@ -7,7 +7,9 @@ import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.FeignClientException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.InvalidDateRangeException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteGenerationException;
-import com.grupodos.alquilervehiculos.msvcreportes.repositories.ReporteRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.services.agregacion.Agregador;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
 import feign.FeignException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +19,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -25,11 +28,43 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class ReportePagosService {
 
+    private static final Agregador<ContratoDto> AGREGADOR_CONTRATOS = new Agregador<>();
+    private static final Agregador.Distintos<UUID> CLIENTES = AGREGADOR_CONTRATOS.distintos(ContratoDto::idCliente);
+
     private final ContratoFeignClient contratoClient;
     private final ClienteFeignClient clienteClient;
-    private final ReporteRepository reporteRepository;
+    private final RegistroReporteService registroReporteService;
+    private final MetricasReporte metricasReporte;
 
     public List<ReportePagosDto> generarReportePagos(LocalDate fechaInicio, LocalDate fechaFin) {
+        MedicionReporte medicion = metricasReporte.iniciar("PAGOS");
+        List<ReportePagosDto> reporte = generarReportePagos(fechaInicio, fechaFin, medicion);
+        registroReporteService.guardar(medicion);
+        return reporte;
+    }
+
+    // Deja el registro de auditoría en la medición para que el llamador lo guarde al terminar el archivo
+    public List<ReportePagosDto> generarReportePagos(LocalDate fechaInicio, LocalDate fechaFin, MedicionReporte medicion) {
+        List<ReportePagosDto> reporte = new ArrayList<>();
+        generarReportePagos(fechaInicio, fechaFin, reporte::add, "EXCEL", medicion, null);
+        return reporte;
+    }
+
+    // Entrega cada fila al consumidor a medida que se arma, sin acumular la lista completa. El tiempo
+    // del consumidor (la escritura en la respuesta) cuenta como generación, no como agregación, y sus
+    // errores (p. ej. el cliente cortó la descarga) se propagan tal cual
+    public int generarReportePagos(LocalDate fechaInicio, LocalDate fechaFin,
+                                   Consumer<ReportePagosDto> consumidor, String formato) {
+        MedicionReporte medicion = metricasReporte.iniciar("PAGOS");
+        EscrituraMedida escritura = new EscrituraMedida(consumidor);
+        int cantidadRegistros = generarReportePagos(fechaInicio, fechaFin, escritura, formato, medicion, escritura);
+        medicion.registrar(MedicionReporte.Etapa.GENERACION, escritura.nanos);
+        registroReporteService.guardar(medicion);
+        return cantidadRegistros;
+    }
+
+    private int generarReportePagos(LocalDate fechaInicio, LocalDate fechaFin, Consumer<ReportePagosDto> consumidor,
+                                    String formato, MedicionReporte medicion, EscrituraMedida escritura) {
         log.info("Generando reporte de pagos desde {} hasta {}", fechaInicio, fechaFin);
 
         validarRangoFechas(fechaInicio, fechaFin);
@@ -37,85 +72,140 @@ public class ReportePagosService {
         try {
             RangoFechasRequest request = new RangoFechasRequest(fechaInicio, fechaFin);
 
-            List<ComprobanteDto> comprobantes = contratoClient.obtenerComprobantesPorRangoFechas(request);
+            List<ComprobanteDto> comprobantes = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerComprobantesPorRangoFechas(request));
             log.debug("Comprobantes obtenidos: {}", comprobantes != null ? comprobantes.size() : "NULL");
 
             if (comprobantes == null || comprobantes.isEmpty()) {
                 log.warn("No se encontraron comprobantes para el rango indicado");
-                return Collections.emptyList();
+                return 0;
+            }
+
+            List<ContratoDto> contratos = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    () -> contratoClient.obtenerContratosPorRangoFechas(request));
+            log.debug("Contratos obtenidos: {}", contratos.size());
+
+            int cantidadRegistros;
+            long inicioAgregacion = System.nanoTime();
+            try {
+                cantidadRegistros = armarReportePagos(comprobantes, contratos, consumidor);
+            } finally {
+                long nanosEscritura = escritura != null ? escritura.nanos : 0;
+                medicion.registrar(MedicionReporte.Etapa.AGREGACION,
+                        System.nanoTime() - inicioAgregacion - nanosEscritura);
             }
+            medicion.filas(cantidadRegistros);
+
+            // Registro del reporte, pendiente de guardar con las métricas completas
+            medicion.setRegistro(crearRegistroReporte(fechaInicio, fechaFin, cantidadRegistros, formato));
+
+            log.info("Reporte generado con {} registros", cantidadRegistros);
+            return cantidadRegistros;
+
+        } catch (EscrituraMedida.Fallo e) {
+            throw e.getCause();
+        } catch (FeignException e) {
+            log.error("Error Feign generando reporte de pagos: status={}, message={}", e.status(), e.getMessage());
+            throw new FeignClientException("msvc-contratos", "Error al obtener datos de contratos", e.status());
+        } catch (Exception e) {
+            log.error("Error generando reporte de pagos: {}", e.getMessage(), e);
+            throw new ReporteGenerationException("Error al generar reporte de pagos: " + e.getMessage(), e);
+        }
+    }
+
+    // Consumidor que acumula su propio tiempo y marca sus errores para no confundirlos con los de la agregación
+    private static final class EscrituraMedida implements Consumer<ReportePagosDto> {
 
-            List<ContratoPagoDto> contratos = contratoClient.obtenerContratosPorRangoFechasPago(request);
-            log.info("Contratos recibidos: {}", contratos);
+        private final Consumer<ReportePagosDto> destino;
+        private long nanos;
 
-            Set<UUID> clienteIds = contratos.stream()
-                    .filter(c -> c.cliente() != null && c.cliente().id() != null)
-                    .map(c -> c.cliente().id())
-                    .collect(Collectors.toSet());
+        EscrituraMedida(Consumer<ReportePagosDto> destino) {
+            this.destino = destino;
+        }
 
-            log.debug("Clientes a consultar ({}): {}", clienteIds.size(), clienteIds);
+        @Override
+        public void accept(ReportePagosDto pago) {
+            long inicio = System.nanoTime();
+            try {
+                destino.accept(pago);
+            } catch (RuntimeException e) {
+                throw new Fallo(e);
+            } finally {
+                nanos += System.nanoTime() - inicio;
+            }
+        }
 
-            List<ClienteDto> clientes = clienteIds.isEmpty()
-                    ? new ArrayList<>()
-                    : clienteClient.obtenerClientesParaReportes(new ArrayList<>(clienteIds));
+        private static final class Fallo extends RuntimeException {
 
-            log.info("Clientes recibidos: {}", clientes);
+            Fallo(RuntimeException causa) {
+                super(causa);
+            }
 
-            Map<UUID, ContratoPagoDto> contratoMap = contratos.stream()
-                    .filter(c -> c.id() != null)
-                    .collect(Collectors.toMap(ContratoPagoDto::id, c -> c));
+            @Override
+            public synchronized RuntimeException getCause() {
+                return (RuntimeException) super.getCause();
+            }
+        }
+    }
 
-            Map<UUID, ClienteDto> clienteMap = clientes.stream()
-                    .filter(c -> c.id() != null)
-                    .collect(Collectors.toMap(ClienteDto::id, c -> c));
+    // Arma las filas a partir de comprobantes y contratos ya obtenidos (sin registro de auditoría)
+    public int armarReportePagos(List<ComprobanteDto> comprobantes, List<ContratoDto> contratos,
+                                 Consumer<ReportePagosDto> consumidor) {
+        Set<UUID> clienteIds = AGREGADOR_CONTRATOS.agregar(contratos).valores(CLIENTES);
 
-            List<ReportePagosDto> reporte = new ArrayList<>();
+        log.debug("Clientes a consultar ({}): {}", clienteIds.size(), clienteIds);
 
-            for (ComprobanteDto comprobante : comprobantes) {
-                if (comprobante == null || comprobante.idContrato() == null) continue;
+        List<ClienteDto> clientes = clienteIds.isEmpty()
+                ? new ArrayList<>()
+                : clienteClient.obtenerClientesParaReportes(new ArrayList<>(clienteIds));
 
-                ContratoPagoDto contrato = contratoMap.get(comprobante.idContrato());
-                ClienteDto cliente = null;
+        log.info("Clientes recibidos: {}", clientes);
 
-                if (contrato != null && contrato.cliente() != null) {
-                    cliente = clienteMap.getOrDefault(contrato.cliente().id(), contrato.cliente());
-                }
+        Map<UUID, ContratoDto> contratoMap = contratos.stream()
+                .filter(c -> c.id() != null)
+                .collect(Collectors.toMap(ContratoDto::id, c -> c));
 
-                if (cliente == null) {
-                    log.warn("Cliente no encontrado para contrato {} (clienteId=null)", comprobante.idContrato());
-                    cliente = crearClientePorDefecto();
-                }
+        Map<UUID, ClienteDto> clienteMap = clientes.stream()
+                .filter(c -> c.id() != null)
+                .collect(Collectors.toMap(ClienteDto::id, c -> c));
 
-                String codigoContrato = contrato != null ? contrato.codigoContrato() : "N/A";
+        int cantidadRegistros = 0;
 
-                reporte.add(new ReportePagosDto(
-                        comprobante.numeroSerie() + "-" + comprobante.numeroCorrelativo(),
-                        comprobante.fechaEmision(),
-                        comprobante.tipoComprobante(),
-                        obtenerNombreCliente(cliente),
-                        obtenerDocumentoCliente(cliente),
-                        cliente.tipoCliente(),
-                        comprobante.subtotal(),
-                        comprobante.igv(),
-                        comprobante.total(),
-                        comprobante.estado(),
-                        codigoContrato
-                ));
-            }
+        for (ComprobanteDto comprobante : comprobantes) {
+            if (comprobante == null || comprobante.idContrato() == null) continue;
 
-            // Guardar registro del reporte
-            guardarRegistroReporte(fechaInicio, fechaFin, reporte.size());
+            ContratoDto contrato = contratoMap.get(comprobante.idContrato());
+            ClienteDto cliente = null;
 
-            log.info("Reporte generado con {} registros", reporte.size());
-            return reporte;
+            if (contrato != null && contrato.idCliente() != null) {
+                cliente = clienteMap.get(contrato.idCliente());
+            }
 
-        } catch (FeignException e) {
-            log.error("Error Feign generando reporte de pagos: status={}, message={}", e.status(), e.getMessage());
-            throw new FeignClientException("msvc-contratos", "Error al obtener datos de contratos", e.status());
-        } catch (Exception e) {
-            log.error("Error generando reporte de pagos: {}", e.getMessage(), e);
-            throw new ReporteGenerationException("Error al generar reporte de pagos: " + e.getMessage(), e);
+            if (cliente == null) {
+                log.warn("Cliente no encontrado para contrato {} (clienteId={})", comprobante.idContrato(),
+                        contrato != null ? contrato.idCliente() : null);
+                cliente = crearClientePorDefecto();
+            }
+
+            String codigoContrato = contrato != null ? contrato.codigoContrato() : "N/A";
+
+            consumidor.accept(new ReportePagosDto(
+                    comprobante.numeroSerie() + "-" + comprobante.numeroCorrelativo(),
+                    comprobante.fechaEmision(),
+                    comprobante.tipoComprobante(),
+                    obtenerNombreCliente(cliente),
+                    obtenerDocumentoCliente(cliente),
+                    cliente.tipoCliente(),
+                    comprobante.subtotal(),
+                    comprobante.igv(),
+                    comprobante.total(),
+                    comprobante.estado(),
+                    codigoContrato
+            ));
+            cantidadRegistros++;
         }
+
+        return cantidadRegistros;
     }
 
     private void validarRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
@@ -172,22 +262,16 @@ public class ReportePagosService {
         }
     }
 
-    // Registrar auditoría del reporte
-    private void guardarRegistroReporte(LocalDate fechaInicio, LocalDate fechaFin, int cantidadRegistros) {
-        try {
-            Reporte registro = new Reporte();
-            registro.setTipoReporte("PAGOS");
-            registro.setFormato("EXCEL");
-            registro.setNombreArchivo("reporte-pagos-" + fechaInicio + "-a-" + fechaFin + ".xlsx");
-            registro.setGeneradoPor("SISTEMA");
-            registro.setParametros("FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin + ", Registros: " + cantidadRegistros);
-            registro.setFechaGeneracion(LocalDateTime.now());
-            reporteRepository.save(registro);
-
-            log.debug("Registro de reporte guardado exitosamente");
-        } catch (Exception e) {
-            log.error("Error guardando registro del reporte: {}", e.getMessage());
-            // No lanzamos excepción para no afectar la generación del reporte principal
-        }
+    // Registro de auditoría del reporte
+    private Reporte crearRegistroReporte(LocalDate fechaInicio, LocalDate fechaFin, int cantidadRegistros, String formato) {
+        Reporte registro = new Reporte();
+        registro.setTipoReporte("PAGOS");
+        registro.setFormato(formato);
+        registro.setNombreArchivo("reporte-pagos-" + fechaInicio + "-a-" + fechaFin
+                + ("CSV".equals(formato) ? ".csv" : ".xlsx"));
+        registro.setGeneradoPor("SISTEMA");
+        registro.setParametros("FechaInicio: " + fechaInicio + ", FechaFin: " + fechaFin + ", Registros: " + cantidadRegistros);
+        registro.setFechaGeneracion(LocalDateTime.now());
+        return registro;
     }
 }
\ No newline at end of file
@@ -1,13 +1,14 @@
 package com.grupodos.alquilervehiculos.msvcreportes.services;
 
-import com.grupodos.alquilervehiculos.msvcreportes.clients.ContratoFeignClient;
 import com.grupodos.alquilervehiculos.msvcreportes.clients.VehiculoFeignClient;
 import com.grupodos.alquilervehiculos.msvcreportes.dto.*;
 import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.FeignClientException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.InvalidDateRangeException;
 import com.grupodos.alquilervehiculos.msvcreportes.exceptions.ReporteGenerationException;
-import com.grupodos.alquilervehiculos.msvcreportes.repositories.ReporteRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.services.agregacion.Agregador;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MedicionReporte;
+import com.grupodos.alquilervehiculos.msvcreportes.services.metricas.MetricasReporte;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -19,136 +20,88 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ReporteUsoVehiculosService {
 
-    private final ContratoFeignClient contratoClient;
+    // Métricas por placa sobre los detalles de contrato del período
+    private static final Agregador<DetalleConContrato> AGREGADOR_DETALLES = new Agregador<>();
+    private static final Agregador.SumaEntera DIAS_ALQUILER = AGREGADOR_DETALLES.sumaEntera(
+            item -> item.detalle().diasAlquiler() != null ? item.detalle().diasAlquiler() : 0);
+    private static final Agregador.Suma TOTAL_RECAUDADO = AGREGADOR_DETALLES.suma(
+            item -> item.detalle().subtotal() != null ? BigDecimal.valueOf(item.detalle().subtotal()) : null);
+    private static final Agregador.Distintos<UUID> DETALLES = AGREGADOR_DETALLES.distintos(
+            item -> item.detalle().idDetalle());
+    private static final Agregador.Maximo<DetalleConContrato, LocalDate> ULTIMO_ALQUILER = AGREGADOR_DETALLES.maximo(
+            item -> item.contrato().fechaFin());
+
+    // Métricas generales sobre las filas ya calculadas del reporte
+    private static final Agregador<ReporteUsoVehiculosDto> AGREGADOR_REPORTE = new Agregador<>();
+    private static final Agregador.Conteo CON_USO = AGREGADOR_REPORTE.conteo(
+            vehiculo -> vehiculo.cantidadContratos() > 0);
+    private static final Agregador.Suma RECAUDADO_GENERAL = AGREGADOR_REPORTE.suma(
+            ReporteUsoVehiculosDto::totalRecaudado);
+    private static final Agregador.SumaEntera DIAS_GENERAL = AGREGADOR_REPORTE.sumaEntera(
+            ReporteUsoVehiculosDto::totalDiasAlquilados);
+    private static final Agregador.SumaEntera CONTRATOS_GENERAL = AGREGADOR_REPORTE.sumaEntera(
+            ReporteUsoVehiculosDto::cantidadContratos);
+    private static final Agregador.Maximo<ReporteUsoVehiculosDto, BigDecimal> MAS_RENTABLE = AGREGADOR_REPORTE.maximo(
+            ReporteUsoVehiculosDto::totalRecaudado);
+
     private final VehiculoFeignClient vehiculoClient;
-    private final ReporteRepository reporteRepository;
+    private final RegistroReporteService registroReporteService;
+    private final MetricasReporte metricasReporte;
+    private final UsoVehiculoDiarioService usoDiarioService;
 
-    public ReporteUsoVehiculosService(ContratoFeignClient contratoClient, VehiculoFeignClient vehiculoClient,  ReporteRepository reporteRepository) {
-        this.contratoClient = contratoClient;
+    public ReporteUsoVehiculosService(VehiculoFeignClient vehiculoClient,
+                                      RegistroReporteService registroReporteService, MetricasReporte metricasReporte,
+                                      UsoVehiculoDiarioService usoDiarioService) {
         this.vehiculoClient = vehiculoClient;
-        this.reporteRepository = reporteRepository;
+        this.registroReporteService = registroReporteService;
+        this.metricasReporte = metricasReporte;
+        this.usoDiarioService = usoDiarioService;
     }
 
     public List<ReporteUsoVehiculosDto> generarReporteUsoVehiculos(LocalDate fechaInicio, LocalDate fechaFin) {
+        MedicionReporte medicion = metricasReporte.iniciar("USO_VEHICULOS");
+        List<ReporteUsoVehiculosDto> reporte = generarReporteUsoVehiculos(fechaInicio, fechaFin, medicion);
+        registroReporteService.guardar(medicion);
+        return reporte;
+    }
+
+    // Deja el registro de auditoría en la medición para que el llamador lo guarde al terminar el archivo
+    public List<ReporteUsoVehiculosDto> generarReporteUsoVehiculos(LocalDate fechaInicio, LocalDate fechaFin,
+                                                                   MedicionReporte medicion) {
         log.info("Generando reporte de uso de vehículos desde {} hasta {}", fechaInicio, fechaFin);
 
         // Validar rango de fechas
         validarRangoFechas(fechaInicio, fechaFin);
 
         try {
-            RangoFechasRequest request = new RangoFechasRequest(fechaInicio, fechaFin);
-
-            // Obtener datos de contratos
-            List<ContratoDto> contratos = contratoClient.obtenerContratosPorRangoFechas(request);
-            log.debug("Contratos obtenidos: {}", contratos != null ? contratos.size() : "NULL");
+            // Los días consolidados salen de la instantánea diaria; solo los pendientes (normalmente hoy)
+            // se consultan en msvc-contratos
+            Map<String, UsoVehiculoDiarioService.TotalesUso> totalesPorPlaca = medicion.medir(
+                    MedicionReporte.Etapa.OBTENCION,
+                    () -> usoDiarioService.obtenerTotalesPorPlaca(fechaInicio, fechaFin));
+            log.debug("Placas con uso en el período: {}", totalesPorPlaca.size());
 
             // Obtener datos de vehículos
-            List<VehiculoDto> vehiculos = vehiculoClient.obtenerVehiculosParaReportes();
+            List<VehiculoDto> vehiculos = medicion.medir(MedicionReporte.Etapa.OBTENCION,
+                    vehiculoClient::obtenerVehiculosParaReportes);
             log.debug("Vehículos obtenidos: {}", vehiculos != null ? vehiculos.size() : "NULL");
 
-            if ((contratos == null || contratos.isEmpty()) || (vehiculos == null || vehiculos.isEmpty())) {
+            if (totalesPorPlaca.isEmpty() || (vehiculos == null || vehiculos.isEmpty())) {
                 log.warn("No se encontraron datos suficientes para generar el reporte");
                 return Collections.emptyList();
             }
 
-            // Agrupar detalles por vehículo usando placa como clave
-            Map<String, List<DetalleContratoDto>> detallesPorVehiculo = contratos.stream()
-                    .filter(contrato -> contrato.detalles() != null)
-                    .flatMap(contrato -> contrato.detalles().stream())
-                    .filter(detalle -> detalle.placaVehiculo() != null)
-                    .collect(Collectors.groupingBy(DetalleContratoDto::placaVehiculo));
-
-            // Crear mapa de vehículos por placa para acceso rápido
-            Map<String, VehiculoDto> vehiculoMap = vehiculos.stream()
-                    .filter(vehiculo -> vehiculo.placa() != null)
-                    .collect(Collectors.toMap(
-                            VehiculoDto::placa,
-                            vehiculo -> vehiculo,
-                            (existing, replacement) -> existing // En caso de duplicados, mantener el primero
-                    ));
-
-            // Calcular estadísticas por vehículo
-            List<ReporteUsoVehiculosDto> reporte = new ArrayList<>();
-
-            for (VehiculoDto vehiculo : vehiculos) {
-                if (vehiculo.placa() == null) {
-                    log.warn("Vehículo sin placa encontrado, omitiendo: {}", vehiculo);
-                    continue;
-                }
-
-                List<DetalleContratoDto> detalles = detallesPorVehiculo.getOrDefault(vehiculo.placa(), Collections.emptyList());
-
-                if (!detalles.isEmpty()) {
-                    int totalDias = detalles.stream()
-                            .mapToInt(DetalleContratoDto::diasAlquiler)
-                            .sum();
-
-                    BigDecimal totalRecaudado = detalles.stream()
-                            .map(detalle -> BigDecimal.valueOf(detalle.subtotal()))
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    int cantidadContratos = (int) detalles.stream()
-                            .map(DetalleContratoDto::idDetalle)
-                            .filter(Objects::nonNull)
-                            .distinct()
-                            .count();
-
-                    LocalDate ultimoAlquiler = contratos.stream()
-                            .filter(contrato -> contrato.detalles() != null)
-                            .filter(contrato -> contrato.detalles().stream()
-                                    .anyMatch(detalle -> vehiculo.placa().equals(detalle.placaVehiculo())))
-                            .map(ContratoDto::fechaFin)
-                            .filter(Objects::nonNull)
-                            .max(LocalDate::compareTo)
-                            .orElse(null);
-
-                    // Calcular porcentaje de uso
-                    long diasTotalesPeriodo = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1;
-                    double porcentajeUso = diasTotalesPeriodo > 0 ?
-                            ((double) totalDias / diasTotalesPeriodo) * 100.0 : 0.0;
-
-                    ReporteUsoVehiculosDto dto = new ReporteUsoVehiculosDto(
-                            vehiculo.placa(),
-                            vehiculo.marca(),
-                            vehiculo.modelo(),
-                            vehiculo.tipoVehiculo(),
-                            totalDias,
-                            cantidadContratos,
-                            totalRecaudado,
-                            Math.min(Math.max(porcentajeUso, 0.0), 100.0), // Asegurar entre 0% y 100%
-                            ultimoAlquiler
-                    );
-
-                    reporte.add(dto);
-                } else {
-                    // Incluir vehículos sin uso en el período
-                    ReporteUsoVehiculosDto dto = new ReporteUsoVehiculosDto(
-                            vehiculo.placa(),
-                            vehiculo.marca(),
-                            vehiculo.modelo(),
-                            vehiculo.tipoVehiculo(),
-                            0, // Sin días alquilados
-                            0, // Sin contratos
-                            BigDecimal.ZERO, // Sin recaudación
-                            0.0, // 0% de uso
-                            null // Sin último alquiler
-                    );
-                    reporte.add(dto);
-                }
-            }
-
-            // Ordenar por total recaudado descendente (los que más generan primero)
-            reporte.sort((a, b) -> b.totalRecaudado().compareTo(a.totalRecaudado()));
+            List<ReporteUsoVehiculosDto> reporte = medicion.medir(MedicionReporte.Etapa.AGREGACION,
+                    () -> armarDesdeTotales(totalesPorPlaca, vehiculos, fechaInicio, fechaFin));
+            medicion.filas(reporte.size());
 
-            // Guardar registro del reporte
-            guardarRegistroReporte(fechaInicio, fechaFin, reporte.size());
+            // Registro del reporte, pendiente de guardar con las métricas completas
+            medicion.setRegistro(crearRegistroReporte(fechaInicio, fechaFin, reporte.size()));
 
             log.info("Reporte de uso de vehículos generado con {} registros", reporte.size());
             return reporte;
@@ -164,6 +117,114 @@ public class ReporteUsoVehiculosService {
         }
     }
 
+    // Arma las filas a partir de contratos y vehículos ya obtenidos (sin registro de auditoría)
+    public List<ReporteUsoVehiculosDto> armarReporteUsoVehiculos(List<ContratoDto> contratos, List<VehiculoDto> vehiculos,
+                                                                 LocalDate fechaInicio, LocalDate fechaFin) {
+        // Agregar todos los detalles por placa en un solo recorrido de los contratos
+        List<DetalleConContrato> detallesConContrato = new ArrayList<>();
+        for (ContratoDto contrato : contratos) {
+            if (contrato.detalles() == null) continue;
+            for (DetalleContratoDto detalle : contrato.detalles()) {
+                if (detalle.placaVehiculo() != null) {
+                    detallesConContrato.add(new DetalleConContrato(contrato, detalle));
+                }
+            }
+        }
+
+        Map<String, Agregador.Resultado<DetalleConContrato>> usoPorPlaca =
+                AGREGADOR_DETALLES.agregarPorGrupo(detallesConContrato, item -> item.detalle().placaVehiculo());
+
+        long diasTotalesPeriodo = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1;
+
+        // Calcular estadísticas por vehículo
+        List<ReporteUsoVehiculosDto> reporte = new ArrayList<>(vehiculos.size());
+
+        for (VehiculoDto vehiculo : vehiculos) {
+            if (vehiculo.placa() == null) {
+                log.warn("Vehículo sin placa encontrado, omitiendo: {}", vehiculo);
+                continue;
+            }
+
+            Agregador.Resultado<DetalleConContrato> uso = usoPorPlaca.get(vehiculo.placa());
+
+            if (uso != null) {
+                int totalDias = uso.valor(DIAS_ALQUILER);
+
+                // Calcular porcentaje de uso
+                double porcentajeUso = diasTotalesPeriodo > 0 ?
+                        ((double) totalDias / diasTotalesPeriodo) * 100.0 : 0.0;
+
+                ReporteUsoVehiculosDto dto = new ReporteUsoVehiculosDto(
+                        vehiculo.placa(),
+                        vehiculo.marca(),
+                        vehiculo.modelo(),
+                        vehiculo.tipoVehiculo(),
+                        totalDias,
+                        uso.cantidad(DETALLES),
+                        uso.valor(TOTAL_RECAUDADO),
+                        Math.min(Math.max(porcentajeUso, 0.0), 100.0), // Asegurar entre 0% y 100%
+                        uso.valor(ULTIMO_ALQUILER)
+                );
+
+                reporte.add(dto);
+            } else {
+                // Incluir vehículos sin uso en el período
+                ReporteUsoVehiculosDto dto = new ReporteUsoVehiculosDto(
+                        vehiculo.placa(),
+                        vehiculo.marca(),
+                        vehiculo.modelo(),
+                        vehiculo.tipoVehiculo(),
+                        0, // Sin días alquilados
+                        0, // Sin contratos
+                        BigDecimal.ZERO, // Sin recaudación
+                        0.0, // 0% de uso
+                        null // Sin último alquiler
+                );
+                reporte.add(dto);
+            }
+        }
+
+        // Ordenar por total recaudado descendente (los que más generan primero)
+        reporte.sort((a, b) -> b.totalRecaudado().compareTo(a.totalRecaudado()));
+
+        return reporte;
+    }
+
+    // Una fila por vehículo a partir de los totales por placa de la instantánea diaria
+    private List<ReporteUsoVehiculosDto> armarDesdeTotales(Map<String, UsoVehiculoDiarioService.TotalesUso> totalesPorPlaca,
+                                                           List<VehiculoDto> vehiculos,
+                                                           LocalDate fechaInicio, LocalDate fechaFin) {
+        long diasTotalesPeriodo = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1;
+
+        List<ReporteUsoVehiculosDto> reporte = new ArrayList<>(vehiculos.size());
+        for (VehiculoDto vehiculo : vehiculos) {
+            if (vehiculo.placa() == null) {
+                log.warn("Vehículo sin placa encontrado, omitiendo: {}", vehiculo);
+                continue;
+            }
+
+            UsoVehiculoDiarioService.TotalesUso totales = totalesPorPlaca.get(vehiculo.placa());
+            int totalDias = totales != null ? totales.dias() : 0;
+            double porcentajeUso = ((double) totalDias / diasTotalesPeriodo) * 100.0;
+
+            reporte.add(new ReporteUsoVehiculosDto(
+                    vehiculo.placa(),
+                    vehiculo.marca(),
+                    vehiculo.modelo(),
+                    vehiculo.tipoVehiculo(),
+                    totalDias,
+                    totales != null ? totales.contratos() : 0,
+                    totales != null ? totales.ingresos() : BigDecimal.ZERO,
+                    Math.min(Math.max(porcentajeUso, 0.0), 100.0), // Asegurar entre 0% y 100%
+                    totales != null ? totales.ultimoAlquiler() : null
+            ));
+        }
+
+        // Ordenar por total recaudado descendente (los que más generan primero)
+        reporte.sort((a, b) -> b.totalRecaudado().compareTo(a.totalRecaudado()));
+        return reporte;
+    }
+
     private void validarRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
         if (fechaInicio == null || fechaFin == null) {
             throw new InvalidDateRangeException("Las fechas de inicio y fin son requeridas");
@@ -198,56 +259,45 @@ public class ReporteUsoVehiculosService {
         return "microservicio-externo";
     }
 
-    private void guardarRegistroReporte(LocalDate fechaInicio, LocalDate fechaFin, int cantidadRegistros) {
-        try {
-            Reporte registroReporte = new Reporte();
-            registroReporte.setTipoReporte("USO_VEHICULOS");
-            registroReporte.setFormato("EXCEL");
-            registroReporte.setNombreArchivo("reporte-uso-vehiculos-" + fechaInicio + "-a-" + fechaFin + ".xlsx");
-            registroReporte.setGeneradoPor("SISTEMA");
-            registroReporte.setParametros("FechaInicio: " + fechaInicio +
-                    ", FechaFin: " + fechaFin +
-                    ", Vehículos: " + cantidadRegistros);
-            registroReporte.setFechaGeneracion(LocalDateTime.now());
-            reporteRepository.save(registroReporte);
-
-            log.debug("Registro de reporte de uso de vehículos guardado exitosamente");
-        } catch (Exception e) {
-            log.error("Error guardando registro del reporte de uso de vehículos: {}", e.getMessage());
-            // No lanzamos excepción para no afectar la generación del reporte principal
-        }
+    private Reporte crearRegistroReporte(LocalDate fechaInicio, LocalDate fechaFin, int cantidadRegistros) {
+        Reporte registroReporte = new Reporte();
+        registroReporte.setTipoReporte("USO_VEHICULOS");
+        registroReporte.setFormato("EXCEL");
+        registroReporte.setNombreArchivo("reporte-uso-vehiculos-" + fechaInicio + "-a-" + fechaFin + ".xlsx");
+        registroReporte.setGeneradoPor("SISTEMA");
+        registroReporte.setParametros("FechaInicio: " + fechaInicio +
+                ", FechaFin: " + fechaFin +
+                ", Vehículos: " + cantidadRegistros);
+        registroReporte.setFechaGeneracion(LocalDateTime.now());
+        return registroReporte;
     }
 
-    // Metodo adicional para obtener estadísticas resumidas
+    // Metodo adicional para obtener estadísticas resumidas a partir de la instantánea diaria de uso
     public Map<String, Object> obtenerEstadisticasUsoVehiculos(LocalDate fechaInicio, LocalDate fechaFin) {
         log.info("Generando estadísticas de uso de vehículos desde {} hasta {}", fechaInicio, fechaFin);
 
         validarRangoFechas(fechaInicio, fechaFin);
 
         try {
-            List<ReporteUsoVehiculosDto> reporteCompleto = generarReporteUsoVehiculos(fechaInicio, fechaFin);
+            // La consolidación corre en el precálculo programado; los días pendientes se consultan en vivo
+            Map<String, UsoVehiculoDiarioService.TotalesUso> totalesPorPlaca =
+                    usoDiarioService.obtenerTotalesPorPlaca(fechaInicio, fechaFin);
 
-            // Calcular estadísticas resumidas
-            int totalVehiculos = reporteCompleto.size();
-            int vehiculosConUso = (int) reporteCompleto.stream()
-                    .filter(vehiculo -> vehiculo.cantidadContratos() > 0)
-                    .count();
-
-            BigDecimal totalRecaudadoGeneral = reporteCompleto.stream()
-                    .map(ReporteUsoVehiculosDto::totalRecaudado)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            List<VehiculoDto> vehiculos = vehiculoClient.obtenerVehiculosParaReportes();
+            List<ReporteUsoVehiculosDto> reporteCompleto = armarDesdeTotales(totalesPorPlaca,
+                    vehiculos != null ? vehiculos : Collections.emptyList(), fechaInicio, fechaFin);
 
-            int totalDiasAlquilados = reporteCompleto.stream()
-                    .mapToInt(ReporteUsoVehiculosDto::totalDiasAlquilados)
-                    .sum();
+            // Calcular estadísticas resumidas en una sola pasada
+            Agregador.Resultado<ReporteUsoVehiculosDto> resumen = AGREGADOR_REPORTE.agregar(reporteCompleto);
 
-            int totalContratos = reporteCompleto.stream()
-                    .mapToInt(ReporteUsoVehiculosDto::cantidadContratos)
-                    .sum();
+            int totalVehiculos = (int) resumen.cantidad();
+            int vehiculosConUso = (int) resumen.valor(CON_USO);
+            BigDecimal totalRecaudadoGeneral = resumen.valor(RECAUDADO_GENERAL);
+            int totalDiasAlquilados = resumen.valor(DIAS_GENERAL);
+            int totalContratos = resumen.valor(CONTRATOS_GENERAL);
 
             // Vehículo más rentable
-            Optional<ReporteUsoVehiculosDto> vehiculoMasRentable = reporteCompleto.stream()
-                    .max(Comparator.comparing(ReporteUsoVehiculosDto::totalRecaudado));
+            Optional<ReporteUsoVehiculosDto> vehiculoMasRentable = resumen.elemento(MAS_RENTABLE);
 
             Map<String, Object> estadisticas = new LinkedHashMap<>();
             estadisticas.put("periodo", fechaInicio + " a " + fechaFin);
@@ -274,9 +324,15 @@ public class ReporteUsoVehiculosService {
             log.info("Estadísticas de uso generadas para {} vehículos", totalVehiculos);
             return estadisticas;
 
+        } catch (FeignException e) {
+            log.error("Error Feign generando estadísticas de uso de vehículos: status={}, message={}", e.status(), e.getMessage());
+            throw new FeignClientException(determinarServicioError(e),
+                    "Error al obtener datos para estadísticas de uso de vehículos", e.status());
         } catch (Exception e) {
             log.error("Error generando estadísticas de uso de vehículos: {}", e.getMessage(), e);
             throw new ReporteGenerationException("Error al generar estadísticas de uso de vehículos: " + e.getMessage(), e);
         }
     }
+
+    private record DetalleConContrato(ContratoDto contrato, DetalleContratoDto detalle) {}
 }
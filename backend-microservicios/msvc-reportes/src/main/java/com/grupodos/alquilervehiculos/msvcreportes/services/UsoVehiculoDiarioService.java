@@ -0,0 +1,306 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.clients.ContratoFeignClient;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ContratoDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.DetalleContratoDto;
+import com.grupodos.alquilervehiculos.msvcreportes.dto.RangoFechasRequest;
+import com.grupodos.alquilervehiculos.msvcreportes.entities.ConsolidacionUsoVehiculos;
+import com.grupodos.alquilervehiculos.msvcreportes.entities.UsoVehiculoDiario;
+import com.grupodos.alquilervehiculos.msvcreportes.repositories.ConsolidacionUsoVehiculosRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.repositories.UsoVehiculoDiarioRepository;
+import com.grupodos.alquilervehiculos.msvcreportes.services.agregacion.Agregador;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Instantánea diaria de uso por placa en reportes_db. Los días cerrados se consolidan desde el
+ * precálculo programado (nunca dentro de una solicitud) y guardan sumas acumuladas, de modo que
+ * los totales de cualquier rango se obtienen con dos lecturas. Cada consolidación vuelve a
+ * calcular los últimos días ya consolidados para recoger contratos editados o anulados después.
+ * Los días aún sin consolidar, o un rango anterior al inicio de la consolidación, se consultan en vivo.
+ */
+@Service
+@Slf4j
+public class UsoVehiculoDiarioService {
+
+    private static final int ID_CONSOLIDACION = 1;
+
+    // La carga inicial (desde el 1 de enero del año anterior) se hace por tramos, cada uno en su transacción
+    private static final int DIAS_POR_TRAMO = 31;
+
+    private static final Agregador<UsoDetalle> AGREGADOR_USOS = new Agregador<>();
+    private static final Agregador.SumaEntera DIAS = AGREGADOR_USOS.sumaEntera(UsoDetalle::dias);
+    private static final Agregador.Suma INGRESOS = AGREGADOR_USOS.suma(UsoDetalle::ingresos);
+    private static final Agregador.Maximo<UsoDetalle, LocalDate> ULTIMO_ALQUILER =
+            AGREGADOR_USOS.maximo(UsoDetalle::ultimoAlquiler);
+
+    private final ContratoFeignClient contratoClient;
+    private final UsoVehiculoDiarioRepository usoRepository;
+    private final ConsolidacionUsoVehiculosRepository consolidacionRepository;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate lectura;
+    private final int diasReconsolidacion;
+
+    public UsoVehiculoDiarioService(ContratoFeignClient contratoClient,
+                                    UsoVehiculoDiarioRepository usoRepository,
+                                    ConsolidacionUsoVehiculosRepository consolidacionRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${reportes.uso-diario.dias-reconsolidacion:7}") int diasReconsolidacion) {
+        this.contratoClient = contratoClient;
+        this.usoRepository = usoRepository;
+        this.consolidacionRepository = consolidacionRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.diasReconsolidacion = Math.max(diasReconsolidacion, 1);
+    }
+
+    // Vuelca en la instantánea los días cerrados pendientes y recalcula la ventana de días recientes
+    public void consolidar() {
+        LocalDate inicio = LocalDate.now().minusDays(1).minusYears(1).withDayOfYear(1);
+        transaccion.executeWithoutResult(estado ->
+                consolidacionRepository.sembrar(ID_CONSOLIDACION, inicio, inicio.minusDays(1)));
+
+        // Los contratos de cada tramo se piden a msvc-contratos fuera de toda transacción; solo la
+        // escritura del tramo toma una conexión y el bloqueo de la fila de control
+        while (true) {
+            LocalDate ayer = LocalDate.now().minusDays(1);
+            Tramo tramo = lectura.execute(estado -> planificarTramo(ayer));
+            if (tramo == null) {
+                return;
+            }
+
+            List<UsoDetalle> usos = obtenerUsos(tramo.desde(), tramo.hasta());
+            Boolean pendiente = transaccion.execute(estado -> guardarTramo(tramo, usos));
+            if (!Boolean.TRUE.equals(pendiente)) {
+                return;
+            }
+        }
+    }
+
+    // Días a consolidar en la siguiente vuelta, o null si no queda nada hasta ayer
+    private Tramo planificarTramo(LocalDate ayer) {
+        ConsolidacionUsoVehiculos consolidacion = consolidacionRepository.findById(ID_CONSOLIDACION)
+                .orElseThrow(() -> new IllegalStateException("No existe la fila de control de la consolidación"));
+
+        LocalDate pendienteDesde = consolidacion.getHasta().plusDays(1);
+        LocalDate desde = max(consolidacion.getDesde(),
+                min(pendienteDesde, ayer.minusDays(diasReconsolidacion - 1L)));
+        if (desde.isAfter(ayer)) {
+            return null;
+        }
+        LocalDate hasta = min(ayer, max(desde, pendienteDesde).plusDays(DIAS_POR_TRAMO - 1L));
+        return new Tramo(desde, hasta, consolidacion.getHasta(), ayer);
+    }
+
+    // Devuelve true si hay que planificar otra vuelta: quedan días pendientes, o otra consolidación
+    // avanzó la fila de control mientras se leían los contratos y el tramo se descarta
+    private boolean guardarTramo(Tramo tramo, List<UsoDetalle> usos) {
+        // El bloqueo de la fila evita que dos consolidaciones simultáneas dupliquen días
+        ConsolidacionUsoVehiculos consolidacion = consolidacionRepository.findConBloqueoById(ID_CONSOLIDACION)
+                .orElseThrow(() -> new IllegalStateException("No existe la fila de control de la consolidación"));
+        if (!consolidacion.getHasta().equals(tramo.consolidadoHasta())) {
+            log.debug("La consolidación avanzó durante la lectura del tramo {} a {}; se vuelve a planificar",
+                    tramo.desde(), tramo.hasta());
+            return true;
+        }
+
+        LocalDate desde = tramo.desde();
+        LocalDate hasta = tramo.hasta();
+        log.debug("Consolidando uso diario de vehículos desde {} hasta {}", desde, hasta);
+
+        // Los días de la ventana se rehacen desde los contratos actuales
+        usoRepository.deleteDesde(desde);
+
+        Map<String, UsoVehiculoDiario> ultimoPorPlaca = agruparPorPlaca(
+                usoRepository.findAcumuladosAl(desde.minusDays(1)));
+
+        Map<ClaveDia, Agregador.Resultado<UsoDetalle>> usoPorDia = AGREGADOR_USOS.agregarPorGrupo(
+                usos, uso -> new ClaveDia(uso.placa(), uso.fecha()));
+
+        // En orden de fecha para que cada acumulado parta del registro anterior de la misma placa
+        List<ClaveDia> claves = new ArrayList<>(usoPorDia.keySet());
+        claves.sort(Comparator.comparing(ClaveDia::fecha).thenComparing(ClaveDia::placa));
+
+        List<UsoVehiculoDiario> nuevos = new ArrayList<>(claves.size());
+        for (ClaveDia clave : claves) {
+            Agregador.Resultado<UsoDetalle> uso = usoPorDia.get(clave);
+            UsoVehiculoDiario anterior = ultimoPorPlaca.get(clave.placa());
+
+            UsoVehiculoDiario registro = new UsoVehiculoDiario(clave.placa(), clave.fecha());
+            registro.setDiasAlquilados(uso.valor(DIAS));
+            registro.setIngresos(uso.valor(INGRESOS));
+            registro.setContratos((int) uso.cantidad());
+            registro.setUltimoAlquiler(uso.valor(ULTIMO_ALQUILER));
+            registro.setDiasAcumulados(registro.getDiasAlquilados()
+                    + (anterior != null ? anterior.getDiasAcumulados() : 0));
+            registro.setIngresosAcumulados(registro.getIngresos()
+                    .add(anterior != null ? anterior.getIngresosAcumulados() : BigDecimal.ZERO));
+            registro.setContratosAcumulados(registro.getContratos()
+                    + (anterior != null ? anterior.getContratosAcumulados() : 0));
+
+            ultimoPorPlaca.put(clave.placa(), registro);
+            nuevos.add(registro);
+        }
+
+        usoRepository.saveAll(nuevos);
+
+        consolidacion.setHasta(hasta);
+        consolidacion.setFechaActualizacion(LocalDateTime.now());
+        consolidacionRepository.save(consolidacion);
+
+        log.info("Uso diario consolidado desde {} hasta {} ({} registros)", desde, hasta, nuevos.size());
+        return hasta.isBefore(tramo.ayer());
+    }
+
+    // Totales por placa del rango: la parte consolidada sale de los acumulados y el resto se consulta
+    // en vivo, después de cerrar la transacción de lectura para no retener la conexión durante la llamada
+    public Map<String, TotalesUso> obtenerTotalesPorPlaca(LocalDate fechaInicio, LocalDate fechaFin) {
+        Map<String, TotalesUso> totales = new HashMap<>();
+        ConsolidacionUsoVehiculos consolidacion = lectura.execute(estado ->
+                leerConsolidado(totales, fechaInicio, fechaFin));
+
+        if (consolidacion == null) {
+            sumarEnVivo(totales, fechaInicio, fechaFin);
+            return totales;
+        }
+
+        LocalDate consolidadoDesde = consolidacion.getDesde();
+        LocalDate consolidadoHasta = consolidacion.getHasta();
+        if (fechaInicio.isBefore(consolidadoDesde)) {
+            sumarEnVivo(totales, fechaInicio, min(fechaFin, consolidadoDesde.minusDays(1)));
+        }
+        if (fechaFin.isAfter(consolidadoHasta)) {
+            sumarEnVivo(totales, max(fechaInicio, consolidadoHasta.plusDays(1)), fechaFin);
+        }
+
+        return totales;
+    }
+
+    // Suma en totales la parte del rango ya consolidada; devuelve la fila de control leída, o null si no existe
+    private ConsolidacionUsoVehiculos leerConsolidado(Map<String, TotalesUso> totales,
+                                                      LocalDate fechaInicio, LocalDate fechaFin) {
+        Optional<ConsolidacionUsoVehiculos> consolidacion = consolidacionRepository.findById(ID_CONSOLIDACION);
+        if (consolidacion.isEmpty()) {
+            return null;
+        }
+
+        LocalDate consolidadoDesde = consolidacion.get().getDesde();
+        LocalDate consolidadoHasta = consolidacion.get().getHasta();
+
+        LocalDate desde = fechaInicio.isBefore(consolidadoDesde) ? consolidadoDesde : fechaInicio;
+        LocalDate hasta = fechaFin.isAfter(consolidadoHasta) ? consolidadoHasta : fechaFin;
+
+        if (!desde.isAfter(hasta)) {
+            Map<String, UsoVehiculoDiario> alFinal = agruparPorPlaca(usoRepository.findAcumuladosAl(hasta));
+            Map<String, UsoVehiculoDiario> previos = agruparPorPlaca(usoRepository.findAcumuladosAl(desde.minusDays(1)));
+            Map<String, LocalDate> ultimosAlquileres = new HashMap<>();
+            for (UsoVehiculoDiarioRepository.UltimoAlquiler ultimo : usoRepository.findUltimoAlquilerEntre(desde, hasta)) {
+                ultimosAlquileres.put(ultimo.getPlaca(), ultimo.getUltimoAlquiler());
+            }
+
+            for (UsoVehiculoDiario registro : alFinal.values()) {
+                UsoVehiculoDiario previo = previos.get(registro.getPlaca());
+                if (previo != null && previo.getFecha().equals(registro.getFecha())) {
+                    continue; // Sin movimientos dentro del rango
+                }
+
+                totales.merge(registro.getPlaca(),
+                        TotalesUso.entre(previo, registro, ultimosAlquileres.get(registro.getPlaca())),
+                        TotalesUso::sumar);
+            }
+        }
+
+        return consolidacion.get();
+    }
+
+    private void sumarEnVivo(Map<String, TotalesUso> totales, LocalDate desde, LocalDate hasta) {
+        Map<String, Agregador.Resultado<UsoDetalle>> usoPorPlaca =
+                AGREGADOR_USOS.agregarPorGrupo(obtenerUsos(desde, hasta), UsoDetalle::placa);
+
+        usoPorPlaca.forEach((placa, uso) -> totales.merge(placa,
+                new TotalesUso(uso.valor(DIAS), uso.valor(INGRESOS), (int) uso.cantidad(), uso.valor(ULTIMO_ALQUILER)),
+                TotalesUso::sumar));
+    }
+
+    // Un elemento por detalle de contrato, fechado en el día de creación del contrato
+    private List<UsoDetalle> obtenerUsos(LocalDate desde, LocalDate hasta) {
+        List<ContratoDto> contratos = contratoClient.obtenerContratosPorRangoFechas(new RangoFechasRequest(desde, hasta));
+        if (contratos == null) {
+            return Collections.emptyList();
+        }
+
+        List<UsoDetalle> usos = new ArrayList<>();
+        for (ContratoDto contrato : contratos) {
+            if (contrato.detalles() == null || contrato.fechaCreacion() == null) continue;
+
+            LocalDate fecha = contrato.fechaCreacion().toLocalDate();
+            for (DetalleContratoDto detalle : contrato.detalles()) {
+                if (detalle.placaVehiculo() == null) continue;
+
+                usos.add(new UsoDetalle(
+                        detalle.placaVehiculo(),
+                        fecha,
+                        detalle.diasAlquiler() != null ? detalle.diasAlquiler() : 0,
+                        detalle.subtotal() != null ? BigDecimal.valueOf(detalle.subtotal()) : null,
+                        contrato.fechaFin()
+                ));
+            }
+        }
+        return usos;
+    }
+
+    private Map<String, UsoVehiculoDiario> agruparPorPlaca(List<UsoVehiculoDiario> registros) {
+        Map<String, UsoVehiculoDiario> porPlaca = new HashMap<>();
+        for (UsoVehiculoDiario registro : registros) {
+            porPlaca.put(registro.getPlaca(), registro);
+        }
+        return porPlaca;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    public record TotalesUso(int dias, BigDecimal ingresos, int contratos, LocalDate ultimoAlquiler) {
+
+        static TotalesUso entre(UsoVehiculoDiario previo, UsoVehiculoDiario actual, LocalDate ultimoAlquiler) {
+            if (previo == null) {
+                return new TotalesUso(actual.getDiasAcumulados(), actual.getIngresosAcumulados(),
+                        actual.getContratosAcumulados(), ultimoAlquiler);
+            }
+            return new TotalesUso(
+                    actual.getDiasAcumulados() - previo.getDiasAcumulados(),
+                    actual.getIngresosAcumulados().subtract(previo.getIngresosAcumulados()),
+                    actual.getContratosAcumulados() - previo.getContratosAcumulados(),
+                    ultimoAlquiler);
+        }
+
+        TotalesUso sumar(TotalesUso otro) {
+            LocalDate ultimo = ultimoAlquiler == null
+                    || (otro.ultimoAlquiler != null && otro.ultimoAlquiler.isAfter(ultimoAlquiler))
+                    ? otro.ultimoAlquiler : ultimoAlquiler;
+            return new TotalesUso(dias + otro.dias, ingresos.add(otro.ingresos), contratos + otro.contratos, ultimo);
+        }
+    }
+
+    // ultimoAlquiler es la fecha de fin del contrato, la misma que muestra el reporte en vivo
+    private record UsoDetalle(String placa, LocalDate fecha, int dias, BigDecimal ingresos, LocalDate ultimoAlquiler) {}
+
+    private record ClaveDia(String placa, LocalDate fecha) {}
+
+    // consolidadoHasta es el valor de la fila de control con el que se planificó el tramo
+    private record Tramo(LocalDate desde, LocalDate hasta, LocalDate consolidadoHasta, LocalDate ayer) {}
+}
@@ -0,0 +1,229 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services.agregacion;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Agregación de una sola pasada para los reportes: se declaran las métricas (sumas, conteos,
+ * distintos, máximos) y se calculan todas en un único recorrido de la lista. Para listas grandes
+ * el recorrido se reparte en el pool fork-join común mediante un stream paralelo.
+ */
+public final class Agregador<T> {
+
+    // A partir de este tamaño conviene repartir el trabajo entre hilos
+    public static final int UMBRAL_PARALELO = 20_000;
+
+    private final List<Function<? super T, BigDecimal>> sumas = new ArrayList<>();
+    private final List<ToIntFunction<? super T>> sumasEnteras = new ArrayList<>();
+    private final List<Predicate<? super T>> conteos = new ArrayList<>();
+    private final List<BiConsumer<? super T, Set<Object>>> distintos = new ArrayList<>();
+    private final List<Function<? super T, ? extends Comparable<?>>> maximos = new ArrayList<>();
+
+    public Suma suma(Function<? super T, BigDecimal> extractor) {
+        sumas.add(extractor);
+        return new Suma(sumas.size() - 1);
+    }
+
+    public SumaEntera sumaEntera(ToIntFunction<? super T> extractor) {
+        sumasEnteras.add(extractor);
+        return new SumaEntera(sumasEnteras.size() - 1);
+    }
+
+    public Conteo conteo(Predicate<? super T> condicion) {
+        conteos.add(condicion);
+        return new Conteo(conteos.size() - 1);
+    }
+
+    public <V> Distintos<V> distintos(Function<? super T, V> extractor) {
+        distintos.add((elemento, conjunto) -> {
+            V valor = extractor.apply(elemento);
+            if (valor != null) conjunto.add(valor);
+        });
+        return new Distintos<>(distintos.size() - 1);
+    }
+
+    // Para valores anidados, por ejemplo los vehículos de todos los detalles de un contrato
+    public <E, V> Distintos<V> distintosDeCada(Function<? super T, ? extends Collection<E>> coleccion,
+                                               Function<? super E, V> extractor) {
+        distintos.add((elemento, conjunto) -> {
+            Collection<E> hijos = coleccion.apply(elemento);
+            if (hijos == null) return;
+            for (E hijo : hijos) {
+                V valor = extractor.apply(hijo);
+                if (valor != null) conjunto.add(valor);
+            }
+        });
+        return new Distintos<>(distintos.size() - 1);
+    }
+
+    public <C extends Comparable<? super C>> Maximo<T, C> maximo(Function<? super T, C> extractor) {
+        maximos.add(extractor);
+        return new Maximo<>(maximos.size() - 1);
+    }
+
+    public Collector<T, ?, Resultado<T>> collector() {
+        return Collector.of(Acumulador::new, Acumulador::agregar, Acumulador::combinar, Acumulador::resultado);
+    }
+
+    public Resultado<T> agregar(Collection<T> elementos) {
+        return flujo(elementos).collect(collector());
+    }
+
+    // El clasificador no debe devolver null; filtrar antes los elementos sin clave
+    public <K> Map<K, Resultado<T>> agregarPorGrupo(Collection<T> elementos, Function<? super T, ? extends K> clasificador) {
+        return flujo(elementos).collect(Collectors.groupingBy(clasificador, collector()));
+    }
+
+    private Stream<T> flujo(Collection<T> elementos) {
+        return elementos.size() >= UMBRAL_PARALELO ? elementos.parallelStream() : elementos.stream();
+    }
+
+    public record Suma(int indice) {}
+
+    public record SumaEntera(int indice) {}
+
+    public record Conteo(int indice) {}
+
+    public record Distintos<V>(int indice) {}
+
+    public record Maximo<T, C extends Comparable<? super C>>(int indice) {}
+
+    private final class Acumulador {
+        private final BigDecimal[] valoresSuma = new BigDecimal[sumas.size()];
+        private final long[] valoresSumaEntera = new long[sumasEnteras.size()];
+        private final long[] valoresConteo = new long[conteos.size()];
+        private final List<Set<Object>> valoresDistintos = new ArrayList<>(distintos.size());
+        private final Object[] clavesMaximo = new Object[maximos.size()];
+        private final Object[] elementosMaximo = new Object[maximos.size()];
+        private long cantidad;
+
+        Acumulador() {
+            Arrays.fill(valoresSuma, BigDecimal.ZERO);
+            for (int i = 0; i < distintos.size(); i++) {
+                valoresDistintos.add(new HashSet<>());
+            }
+        }
+
+        void agregar(T elemento) {
+            cantidad++;
+            for (int i = 0; i < valoresSuma.length; i++) {
+                BigDecimal valor = sumas.get(i).apply(elemento);
+                if (valor != null) valoresSuma[i] = valoresSuma[i].add(valor);
+            }
+            for (int i = 0; i < valoresSumaEntera.length; i++) {
+                valoresSumaEntera[i] += sumasEnteras.get(i).applyAsInt(elemento);
+            }
+            for (int i = 0; i < valoresConteo.length; i++) {
+                if (conteos.get(i).test(elemento)) valoresConteo[i]++;
+            }
+            for (int i = 0; i < valoresDistintos.size(); i++) {
+                distintos.get(i).accept(elemento, valoresDistintos.get(i));
+            }
+            for (int i = 0; i < clavesMaximo.length; i++) {
+                Object clave = maximos.get(i).apply(elemento);
+                if (clave != null && (clavesMaximo[i] == null || comparar(clave, clavesMaximo[i]) > 0)) {
+                    clavesMaximo[i] = clave;
+                    elementosMaximo[i] = elemento;
+                }
+            }
+        }
+
+        Acumulador combinar(Acumulador otro) {
+            cantidad += otro.cantidad;
+            for (int i = 0; i < valoresSuma.length; i++) {
+                valoresSuma[i] = valoresSuma[i].add(otro.valoresSuma[i]);
+            }
+            for (int i = 0; i < valoresSumaEntera.length; i++) {
+                valoresSumaEntera[i] += otro.valoresSumaEntera[i];
+            }
+            for (int i = 0; i < valoresConteo.length; i++) {
+                valoresConteo[i] += otro.valoresConteo[i];
+            }
+            for (int i = 0; i < valoresDistintos.size(); i++) {
+                valoresDistintos.get(i).addAll(otro.valoresDistintos.get(i));
+            }
+            // En empate se conserva el de la izquierda, igual que en el recorrido secuencial
+            for (int i = 0; i < clavesMaximo.length; i++) {
+                Object clave = otro.clavesMaximo[i];
+                if (clave != null && (clavesMaximo[i] == null || comparar(clave, clavesMaximo[i]) > 0)) {
+                    clavesMaximo[i] = clave;
+                    elementosMaximo[i] = otro.elementosMaximo[i];
+                }
+            }
+            return this;
+        }
+
+        Resultado<T> resultado() {
+            return new Resultado<>(cantidad, valoresSuma, valoresSumaEntera, valoresConteo,
+                    valoresDistintos, clavesMaximo, elementosMaximo);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int comparar(Object a, Object b) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+    }
+
+    public static final class Resultado<T> {
+        private final long cantidad;
+        private final BigDecimal[] sumas;
+        private final long[] sumasEnteras;
+        private final long[] conteos;
+        private final List<Set<Object>> distintos;
+        private final Object[] clavesMaximo;
+        private final Object[] elementosMaximo;
+
+        private Resultado(long cantidad, BigDecimal[] sumas, long[] sumasEnteras, long[] conteos,
+                          List<Set<Object>> distintos, Object[] clavesMaximo, Object[] elementosMaximo) {
+            this.cantidad = cantidad;
+            this.sumas = sumas;
+            this.sumasEnteras = sumasEnteras;
+            this.conteos = conteos;
+            this.distintos = distintos;
+            this.clavesMaximo = clavesMaximo;
+            this.elementosMaximo = elementosMaximo;
+        }
+
+        public long cantidad() {
+            return cantidad;
+        }
+
+        public BigDecimal valor(Suma suma) {
+            return sumas[suma.indice()];
+        }
+
+        public int valor(SumaEntera suma) {
+            return Math.toIntExact(sumasEnteras[suma.indice()]);
+        }
+
+        public long valor(Conteo conteo) {
+            return conteos[conteo.indice()];
+        }
+
+        @SuppressWarnings("unchecked")
+        public <V> Set<V> valores(Distintos<V> distintos) {
+            return (Set<V>) this.distintos.get(distintos.indice());
+        }
+
+        public int cantidad(Distintos<?> distintos) {
+            return this.distintos.get(distintos.indice()).size();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <C extends Comparable<? super C>> C valor(Maximo<T, C> maximo) {
+            return (C) clavesMaximo[maximo.indice()];
+        }
+
+        @SuppressWarnings("unchecked")
+        public <C extends Comparable<? super C>> Optional<T> elemento(Maximo<T, C> maximo) {
+            return Optional.ofNullable((T) elementosMaximo[maximo.indice()]);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight: mientras un cálculo con cierta clave está en curso, las demás llamadas con la
+ * misma clave esperan ese resultado (o su excepción) en lugar de repetir el trabajo.
+ */
+@Component
+public class EjecucionUnica {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T ejecutar(String clave, Supplier<T> calculo) {
+        CompletableFuture<Object> propio = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(clave, propio);
+
+        if (existente != null) {
+            return (T) esperar(existente);
+        }
+
+        try {
+            T resultado = calculo.get();
+            propio.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propio);
+        }
+    }
+
+    private Object esperar(CompletableFuture<Object> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            // Se relanza la excepción original para que el GlobalExceptionHandler responda igual
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Resultados de reportes ya calculados (datos o archivos generados) por clave de tipo y
+ * parámetros. El cálculo de una clave ausente o vencida pasa por {@link EjecucionUnica}.
+ *
+ * Solo los períodos ya cerrados (que terminan antes de hoy) se conservan la vigencia completa,
+ * algo más de un día para que el precálculo nocturno los renueve antes de que venzan y cubran
+ * toda la jornada; un período que llega hasta hoy sigue recibiendo datos y se guarda con una
+ * vigencia corta, que basta para que solicitudes seguidas compartan el cálculo.
+ */
+@Component
+@Slf4j
+public class ReporteCache {
+
+    private static final int MAXIMO_ENTRADAS = 200;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final EjecucionUnica ejecucionUnica;
+    private final Duration vigencia;
+    private final Duration vigenciaPeriodoAbierto;
+
+    public ReporteCache(EjecucionUnica ejecucionUnica,
+                        @Value("${reportes.cache.vigencia:PT25H}") Duration vigencia,
+                        @Value("${reportes.cache.vigencia-periodo-abierto:PT5M}") Duration vigenciaPeriodoAbierto) {
+        this.ejecucionUnica = ejecucionUnica;
+        this.vigencia = vigencia;
+        this.vigenciaPeriodoAbierto = vigenciaPeriodoAbierto;
+    }
+
+    // finPeriodo es el último día que cubre el resultado; decide cuánto tiempo se conserva
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(String clave, LocalDate finPeriodo, Supplier<T> calculo) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.vigente()) {
+            return (T) entrada.valor();
+        }
+
+        return ejecucionUnica.ejecutar(clave, () -> {
+            // Otro hilo pudo completar el cálculo entre la lectura y la reserva de la clave
+            Entrada actual = entradas.get(clave);
+            if (actual != null && actual.vigente()) {
+                return (T) actual.valor();
+            }
+            return guardar(clave, finPeriodo, calculo.get());
+        });
+    }
+
+    // Recalcula aunque haya un valor vigente (precálculo programado)
+    public <T> T recalcular(String clave, LocalDate finPeriodo, Supplier<T> calculo) {
+        return ejecucionUnica.ejecutar(clave, () -> guardar(clave, finPeriodo, calculo.get()));
+    }
+
+    private <T> T guardar(String clave, LocalDate finPeriodo, T valor) {
+        if (entradas.size() >= MAXIMO_ENTRADAS && !entradas.containsKey(clave)) {
+            entradas.values().removeIf(entrada -> !entrada.vigente());
+
+            if (entradas.size() >= MAXIMO_ENTRADAS) {
+                entradas.entrySet().stream()
+                        .min(Comparator.comparing(e -> e.getValue().venceEn()))
+                        .ifPresent(proximaAVencer -> entradas.remove(proximaAVencer.getKey()));
+            }
+        }
+
+        Duration vigenciaEntrada = finPeriodo.isBefore(LocalDate.now()) ? vigencia : vigenciaPeriodoAbierto;
+        entradas.put(clave, new Entrada(valor, Instant.now().plus(vigenciaEntrada)));
+        log.debug("Resultado de reporte guardado en caché por {}: {}", vigenciaEntrada, clave);
+        return valor;
+    }
+
+    private record Entrada(Object valor, Instant venceEn) {
+
+        boolean vigente() {
+            return venceEn.isAfter(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services.metricas;
+
+import com.grupodos.alquilervehiculos.msvcreportes.entities.Reporte;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Tiempos y volúmenes de una generación de reporte. Cada etapa se publica en Micrometer al
+ * terminar y además se conserva para volcarla en el registro de auditoría ({@link Reporte}).
+ * No es thread-safe: la usa un solo hilo de principio a fin.
+ */
+public final class MedicionReporte {
+
+    public enum Etapa { OBTENCION, AGREGACION, GENERACION }
+
+    private final String tipoReporte;
+    private final MeterRegistry registry;
+    private final Map<Etapa, Long> duracionesMs = new EnumMap<>(Etapa.class);
+    private Integer filas;
+    private Long bytes;
+    private Reporte registro;
+
+    MedicionReporte(String tipoReporte, MeterRegistry registry) {
+        this.tipoReporte = tipoReporte;
+        this.registry = registry;
+    }
+
+    public <T> T medir(Etapa etapa, Supplier<T> paso) {
+        long inicio = System.nanoTime();
+        try {
+            return paso.get();
+        } finally {
+            registrarDuracion(etapa, System.nanoTime() - inicio);
+        }
+    }
+
+    public void medir(Etapa etapa, Runnable paso) {
+        medir(etapa, () -> {
+            paso.run();
+            return null;
+        });
+    }
+
+    // Duración medida por el llamador, p. ej. repartida en muchas escrituras pequeñas
+    public void registrar(Etapa etapa, long nanos) {
+        registrarDuracion(etapa, nanos);
+    }
+
+    public void filas(int cantidad) {
+        this.filas = cantidad;
+        DistributionSummary.builder("reportes.filas")
+                .description("Filas por reporte generado")
+                .tag("tipo", tipoReporte)
+                .register(registry)
+                .record(cantidad);
+    }
+
+    public void bytes(long cantidad) {
+        this.bytes = cantidad;
+        DistributionSummary.builder("reportes.archivo.tamanio")
+                .description("Tamaño del archivo generado")
+                .baseUnit("bytes")
+                .tag("tipo", tipoReporte)
+                .register(registry)
+                .record(cantidad);
+    }
+
+    public String getTipoReporte() {
+        return tipoReporte;
+    }
+
+    // Registro de auditoría pendiente de guardar al terminar la generación
+    public Reporte getRegistro() {
+        return registro;
+    }
+
+    public void setRegistro(Reporte registro) {
+        this.registro = registro;
+    }
+
+    // Vuelca lo medido hasta ahora en el registro de auditoría
+    public void aplicar(Reporte reporte) {
+        reporte.setCantidadRegistros(filas);
+        reporte.setTamañoBytes(bytes);
+        reporte.setDuracionObtencionMs(duracionesMs.get(Etapa.OBTENCION));
+        reporte.setDuracionAgregacionMs(duracionesMs.get(Etapa.AGREGACION));
+        reporte.setDuracionGeneracionMs(duracionesMs.get(Etapa.GENERACION));
+    }
+
+    private void registrarDuracion(Etapa etapa, long nanos) {
+        // Una etapa puede medirse en varios tramos (p. ej. dos llamadas Feign); se acumulan
+        duracionesMs.merge(etapa, Duration.ofNanos(nanos).toMillis(), Long::sum);
+        Timer.builder("reportes.etapa")
+                .description("Duración de cada etapa de generación de reportes")
+                .tag("tipo", tipoReporte)
+                .tag("etapa", etapa.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+}
@@ -0,0 +1,60 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Punto de entrada a las métricas de reportes (expuestas en /actuator/prometheus):
+ * reportes.etapa (timer por tipo y etapa), reportes.filas, reportes.archivo.tamanio y
+ * reportes.generados (contador por tipo), además de la cola de auditoría
+ * (reportes.auditoria.pendientes, reportes.auditoria.lote, reportes.auditoria.guardados y
+ * reportes.auditoria.descartados).
+ */
+@Component
+public class MetricasReporte {
+
+    private final MeterRegistry registry;
+
+    public MetricasReporte(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MedicionReporte iniciar(String tipoReporte) {
+        return new MedicionReporte(tipoReporte, registry);
+    }
+
+    public void contarGenerado(String tipoReporte) {
+        Counter.builder("reportes.generados")
+                .description("Reportes generados por tipo")
+                .tag("tipo", tipoReporte)
+                .register(registry)
+                .increment();
+    }
+
+    public void registrarColaAuditoria(Collection<?> cola) {
+        registry.gaugeCollectionSize("reportes.auditoria.pendientes", Tags.empty(), cola);
+    }
+
+    public void registrarLoteAuditoria(int registros, long nanos) {
+        Timer.builder("reportes.auditoria.lote")
+                .description("Inserción de un lote de registros de auditoría")
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+        Counter.builder("reportes.auditoria.guardados")
+                .register(registry)
+                .increment(registros);
+    }
+
+    public void contarAuditoriaDescartada() {
+        Counter.builder("reportes.auditoria.descartados")
+                .description("Registros de auditoría descartados por cola llena")
+                .register(registry)
+                .increment();
+    }
+}
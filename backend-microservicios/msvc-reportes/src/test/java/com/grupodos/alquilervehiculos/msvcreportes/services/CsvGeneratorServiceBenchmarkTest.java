@@ -0,0 +1,75 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rendimiento del CSV de pagos frente al Excel de las mismas 100k filas; el objetivo de la
+ * exportación CSV es al menos 10 veces el rendimiento del Excel. No corre con el build normal:
+ * mvn test -Dtest=CsvGeneratorServiceBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CsvGeneratorServiceBenchmarkTest {
+
+	private static final int FILAS = 100_000;
+	private static final int CALENTAMIENTO = 3;
+	private static final int MEDICIONES = 5;
+	private static final double MEJORA_MINIMA = 10.0;
+
+	private final CsvGeneratorService csvGeneratorService = new CsvGeneratorService();
+	private final ExcelGeneratorService excelGeneratorService = new ExcelGeneratorService();
+
+	@Test
+	void csvDePagosDiezVecesMasRapidoQueExcel() throws Exception {
+		List<ReportePagosDto> pagos = PagosDeMuestra.generar(FILAS);
+
+		long nanosExcel = mejorTiempo(() -> excelGeneratorService.generarReportePagosExcel(pagos, "Benchmark").length);
+		long nanosCsv = mejorTiempo(() -> generarCsv(pagos, false));
+		long nanosCsvGzip = mejorTiempo(() -> generarCsv(pagos, true));
+
+		double mejora = (double) nanosExcel / nanosCsv;
+		System.out.printf("Pagos con %d filas (mejor de %d): Excel %d ms, CSV %d ms (%.1fx), CSV gzip %d ms (%.1fx)%n",
+				FILAS, MEDICIONES, nanosExcel / 1_000_000, nanosCsv / 1_000_000, mejora,
+				nanosCsvGzip / 1_000_000, (double) nanosExcel / nanosCsvGzip);
+		assertThat(mejora).isGreaterThanOrEqualTo(MEJORA_MINIMA);
+	}
+
+	// Igual que el endpoint: encabezado y filas una a una sobre el escritor con buffer
+	private int generarCsv(List<ReportePagosDto> pagos, boolean gzip) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try (EscritorCsv escritor = new EscritorCsv(salida, gzip)) {
+			csvGeneratorService.escribirEncabezadoPagos(escritor);
+			for (ReportePagosDto pago : pagos) {
+				csvGeneratorService.escribirFilaPago(escritor, pago);
+			}
+		}
+		return salida.size();
+	}
+
+	private long mejorTiempo(Generacion generacion) throws Exception {
+		for (int i = 0; i < CALENTAMIENTO; i++) {
+			generacion.generar();
+		}
+
+		long mejorNanos = Long.MAX_VALUE;
+		for (int i = 0; i < MEDICIONES; i++) {
+			long inicio = System.nanoTime();
+			int tamanio = generacion.generar();
+			mejorNanos = Math.min(mejorNanos, System.nanoTime() - inicio);
+			assertThat(tamanio).isPositive();
+		}
+		return mejorNanos;
+	}
+
+	@FunctionalInterface
+	private interface Generacion {
+		int generar() throws Exception;
+	}
+}
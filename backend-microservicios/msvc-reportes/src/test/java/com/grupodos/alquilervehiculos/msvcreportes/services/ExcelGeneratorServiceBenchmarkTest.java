@@ -0,0 +1,141 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tiempo y bytes asignados por fila al generar una hoja de pagos de 100k filas, frente a la
+ * escritura anterior (XSSF en memoria, fechas como texto, totales acumulados en BigDecimal y
+ * autoajuste de columnas). El objetivo es al menos la mitad del tiempo por hoja. No corre con el
+ * build normal: mvn test -Dtest=ExcelGeneratorServiceBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExcelGeneratorServiceBenchmarkTest {
+
+	private static final int FILAS = 100_000;
+	private static final int CALENTAMIENTO = 2;
+	private static final int MEDICIONES = 3;
+	private static final double MEJORA_MINIMA = 2.0;
+	private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+	private static final String[] ENCABEZADOS = {
+			"N° Comprobante", "Fecha Emisión", "Tipo", "Cliente",
+			"Documento", "Tipo Cliente", "Subtotal", "IGV", "Total", "Estado", "Contrato"
+	};
+
+	private final ExcelGeneratorService excelGeneratorService = new ExcelGeneratorService();
+	private final com.sun.management.ThreadMXBean hilos =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	@Test
+	void hojaDePagosDeCienMilFilasEnLaMitadDelTiempo() throws Exception {
+		List<ReportePagosDto> pagos = PagosDeMuestra.generar(FILAS);
+
+		Medicion anterior = medir(() -> generarComoAntes(pagos));
+		Medicion actual = medir(() -> excelGeneratorService.generarReportePagosExcel(pagos, "Benchmark"));
+
+		double mejora = (double) anterior.nanos() / actual.nanos();
+		System.out.printf("Hoja de pagos con %d filas (mejor de %d):%n", FILAS, MEDICIONES);
+		System.out.printf("  anterior: %d ms, %d bytes asignados por fila, archivo de %d KB%n",
+				anterior.nanos() / 1_000_000, anterior.bytesAsignados() / FILAS, anterior.tamanio() / 1024);
+		System.out.printf("  actual:   %d ms, %d bytes asignados por fila, archivo de %d KB (%.1fx)%n",
+				actual.nanos() / 1_000_000, actual.bytesAsignados() / FILAS, actual.tamanio() / 1024, mejora);
+
+		assertThat(actual.tamanio()).isPositive();
+		assertThat(mejora).isGreaterThanOrEqualTo(MEJORA_MINIMA);
+	}
+
+	private Medicion medir(Generacion generacion) throws Exception {
+		for (int i = 0; i < CALENTAMIENTO; i++) {
+			generacion.generar();
+		}
+
+		long hilo = Thread.currentThread().threadId();
+		long mejorNanos = Long.MAX_VALUE;
+		long menosBytes = Long.MAX_VALUE;
+		int tamanio = 0;
+		for (int i = 0; i < MEDICIONES; i++) {
+			long asignadosAntes = hilos.getThreadAllocatedBytes(hilo);
+			long inicio = System.nanoTime();
+			byte[] archivo = generacion.generar();
+			mejorNanos = Math.min(mejorNanos, System.nanoTime() - inicio);
+			menosBytes = Math.min(menosBytes, hilos.getThreadAllocatedBytes(hilo) - asignadosAntes);
+			tamanio = archivo.length;
+		}
+		return new Medicion(mejorNanos, menosBytes, tamanio);
+	}
+
+	// Escritura de la hoja de pagos tal como se hacía antes de SXSSF, sin título ni estilos de texto
+	private byte[] generarComoAntes(List<ReportePagosDto> pagos) throws Exception {
+		try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream salida = new ByteArrayOutputStream()) {
+			Sheet sheet = workbook.createSheet("Reporte de Pagos");
+			CellStyle moneda = workbook.createCellStyle();
+			moneda.setDataFormat(workbook.createDataFormat().getFormat("S/ #,##0.00"));
+
+			int fila = 0;
+			Row encabezado = sheet.createRow(fila++);
+			for (int i = 0; i < ENCABEZADOS.length; i++) {
+				encabezado.createCell(i).setCellValue(ENCABEZADOS[i]);
+			}
+
+			BigDecimal subtotalGeneral = BigDecimal.ZERO;
+			BigDecimal igvGeneral = BigDecimal.ZERO;
+			BigDecimal totalGeneral = BigDecimal.ZERO;
+			for (ReportePagosDto pago : pagos) {
+				Row row = sheet.createRow(fila++);
+				row.createCell(0).setCellValue(pago.numeroComprobante());
+				row.createCell(1).setCellValue(pago.fechaEmision().format(FECHA_HORA));
+				row.createCell(2).setCellValue(pago.tipoComprobante());
+				row.createCell(3).setCellValue(pago.cliente());
+				row.createCell(4).setCellValue(pago.documentoCliente());
+				row.createCell(5).setCellValue(pago.tipoCliente());
+				celdaMoneda(row, 6, pago.subtotal(), moneda);
+				celdaMoneda(row, 7, pago.igv(), moneda);
+				celdaMoneda(row, 8, pago.total(), moneda);
+				row.createCell(9).setCellValue(pago.estadoComprobante());
+				row.createCell(10).setCellValue(pago.codigoContrato());
+				subtotalGeneral = subtotalGeneral.add(pago.subtotal());
+				igvGeneral = igvGeneral.add(pago.igv());
+				totalGeneral = totalGeneral.add(pago.total());
+			}
+
+			Row totales = sheet.createRow(fila);
+			celdaMoneda(totales, 6, subtotalGeneral, moneda);
+			celdaMoneda(totales, 7, igvGeneral, moneda);
+			celdaMoneda(totales, 8, totalGeneral, moneda);
+
+			for (int i = 0; i < ENCABEZADOS.length; i++) {
+				sheet.autoSizeColumn(i);
+			}
+			workbook.write(salida);
+			return salida.toByteArray();
+		}
+	}
+
+	private static void celdaMoneda(Row row, int columna, BigDecimal valor, CellStyle estilo) {
+		Cell celda = row.createCell(columna);
+		celda.setCellValue(valor != null ? valor.doubleValue() : 0.0);
+		celda.setCellStyle(estilo);
+	}
+
+	private record Medicion(long nanos, long bytesAsignados, int tamanio) {}
+
+	@FunctionalInterface
+	private interface Generacion {
+		byte[] generar() throws Exception;
+	}
+}
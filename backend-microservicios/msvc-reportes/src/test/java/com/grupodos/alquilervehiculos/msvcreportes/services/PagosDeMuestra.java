@@ -0,0 +1,38 @@
+package com.grupodos.alquilervehiculos.msvcreportes.services;
+
+import com.grupodos.alquilervehiculos.msvcreportes.dto.ReportePagosDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Filas de pagos sintéticas y deterministas para los benchmarks de generación de archivos
+final class PagosDeMuestra {
+
+	private PagosDeMuestra() {
+	}
+
+	static List<ReportePagosDto> generar(int filas) {
+		LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 8, 0);
+		List<ReportePagosDto> pagos = new ArrayList<>(filas);
+		for (int i = 0; i < filas; i++) {
+			BigDecimal subtotal = BigDecimal.valueOf(100 + i % 900, 0).add(BigDecimal.valueOf(i % 100, 2));
+			BigDecimal igv = subtotal.multiply(new BigDecimal("0.18")).setScale(2, RoundingMode.HALF_UP);
+			pagos.add(new ReportePagosDto(
+					"F001-" + (i + 1),
+					inicio.plusMinutes(i * 5L),
+					i % 3 == 0 ? "FACTURA" : "BOLETA",
+					"Cliente " + (i % 5_000),
+					"DNI: " + (10_000_000 + i % 5_000),
+					i % 3 == 0 ? "EMPRESA" : "NATURAL",
+					subtotal,
+					igv,
+					subtotal.add(igv),
+					"EMITIDO",
+					"CT-" + (i / 2 + 1)));
+		}
+		return pagos;
+	}
+}
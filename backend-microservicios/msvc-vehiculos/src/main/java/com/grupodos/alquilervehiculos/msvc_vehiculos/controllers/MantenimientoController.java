@@ -1,6 +1,8 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.controllers;
 
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.CostoMantenimientoVehiculoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.MantenimientoRequestDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.PronosticoMantenimientoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Mantenimiento;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.services.MantenimientoService;
 import jakarta.validation.Valid;
@@ -68,6 +70,20 @@ public class MantenimientoController {
         return ResponseEntity.ok(mantenimientoService.obtenerCostoTotalMantenimientos(vehiculoId));
     }
 
+    @GetMapping("/costos-por-vehiculo")
+    public ResponseEntity<List<CostoMantenimientoVehiculoDto>> obtenerCostosPorVehiculo() {
+        log.debug("Solicitud para obtener costos de mantenimiento por vehículo");
+        return ResponseEntity.ok(mantenimientoService.obtenerCostosPorVehiculo());
+    }
+
+    @GetMapping("/pronostico")
+    public ResponseEntity<List<PronosticoMantenimientoDto>> obtenerPronostico(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "100") int limite) {
+        log.debug("Solicitud para obtener pronóstico de mantenimientos hasta: {}", hasta);
+        return ResponseEntity.ok(mantenimientoService.obtenerPronostico(hasta, limite));
+    }
+
     @GetMapping("/proximos-vencer")
     public ResponseEntity<List<Mantenimiento>> listarProximosAVencer(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaLimite) {
@@ -3,6 +3,7 @@ package com.grupodos.alquilervehiculos.msvc_vehiculos.controllers;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.MarcaConModelosRequestDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Marca;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.services.MarcaService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,11 +24,16 @@ import java.util.List;
 public class MarcaController {
 
     private final MarcaService marcaService;
+    private final CatalogoCache catalogoCache;
 
     @GetMapping
-    public ResponseEntity<List<Marca>> listarTodas() {
+    public ResponseEntity<List<Marca>> listarTodas(WebRequest request) {
         log.debug("Solicitud para listar todas las marcas");
-        return ResponseEntity.ok(marcaService.listarTodas());
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(marcaService.listarTodas());
     }
 
     @GetMapping("/{id}")
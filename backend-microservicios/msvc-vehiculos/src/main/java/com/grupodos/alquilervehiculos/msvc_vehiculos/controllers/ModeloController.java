@@ -3,6 +3,7 @@ package com.grupodos.alquilervehiculos.msvc_vehiculos.controllers;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ModeloRequestDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Modelo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.services.ModeloService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,17 +24,26 @@ import java.util.List;
 public class ModeloController {
 
     private final ModeloService modeloService;
+    private final CatalogoCache catalogoCache;
 
     @GetMapping
-    public ResponseEntity<List<Modelo>> listarTodos() {
+    public ResponseEntity<List<Modelo>> listarTodos(WebRequest request) {
         log.debug("Solicitud para listar todos los modelos");
-        return ResponseEntity.ok(modeloService.listarTodos());
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(modeloService.listarTodos());
     }
 
     @GetMapping("/marca/{marcaId}")
-    public ResponseEntity<List<Modelo>> listarPorMarca(@PathVariable Long marcaId) {
+    public ResponseEntity<List<Modelo>> listarPorMarca(@PathVariable Long marcaId, WebRequest request) {
         log.debug("Solicitud para listar modelos por marca ID: {}", marcaId);
-        return ResponseEntity.ok(modeloService.listarPorMarca(marcaId));
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(modeloService.listarPorMarca(marcaId));
     }
 
     @GetMapping("/{id}")
@@ -2,11 +2,14 @@ package com.grupodos.alquilervehiculos.msvc_vehiculos.controllers;
 
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.TipoVehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.services.TipoVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,11 +22,16 @@ import java.util.List;
 public class TipoVehiculoController {
 
     private final TipoVehiculoService tipoVehiculoService;
+    private final CatalogoCache catalogoCache;
 
     @GetMapping
-    public ResponseEntity<List<TipoVehiculo>> listarTodos() {
+    public ResponseEntity<List<TipoVehiculo>> listarTodos(WebRequest request) {
         log.debug("Solicitud para listar todos los tipos de vehículo");
-        return ResponseEntity.ok(tipoVehiculoService.listarTodos());
+        String etag = catalogoCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(tipoVehiculoService.listarTodos());
     }
 
     @GetMapping("/{id}")
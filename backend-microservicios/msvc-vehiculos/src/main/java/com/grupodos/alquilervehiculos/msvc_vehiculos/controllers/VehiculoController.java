@@ -1,22 +1,41 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.BusquedaVehiculosDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.CambioEstadoRequest;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EventosVehiculoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.FiltroBusquedaVehiculos;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ResultadoImportacionDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ResumenFlotaDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoContratoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoRequestDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoResponseDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoCombustible;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.BusquedaVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.ImportacionVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.eventos.EventoVehiculoService;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.services.VehiculoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/vehiculos")
@@ -27,11 +46,18 @@ import java.util.UUID;
 public class VehiculoController {
 
     private final VehiculoService vehiculoService;
+    private final BusquedaVehiculoService busquedaVehiculoService;
+    private final ImportacionVehiculoService importacionVehiculoService;
+    private final EventoVehiculoService eventoVehiculoService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<Vehiculo>> listarTodos() {
-        log.debug("Solicitud para listar todos los vehículos");
-        return ResponseEntity.ok(vehiculoService.listarTodos());
+    public ResponseEntity<List<Vehiculo>> listarTodos(
+            @RequestParam(defaultValue = "false") boolean incluirInactivos) {
+        log.debug("Solicitud para listar todos los vehículos (incluir inactivos: {})", incluirInactivos);
+        return ResponseEntity.ok(incluirInactivos
+                ? vehiculoService.listarTodosIncluyendoInactivos()
+                : vehiculoService.listarTodos());
     }
 
     @GetMapping("/disponibles")
@@ -40,6 +66,55 @@ public class VehiculoController {
         return ResponseEntity.ok(vehiculoService.listarDisponibles());
     }
 
+    @GetMapping("/buscar")
+    public ResponseEntity<BusquedaVehiculosDto> buscar(
+            @RequestParam(required = false) EstadoVehiculo estado,
+            @RequestParam(required = false) Long marcaId,
+            @RequestParam(required = false) Long tipoId,
+            @RequestParam(required = false) TipoCombustible combustible,
+            @RequestParam(required = false) Integer anioDesde,
+            @RequestParam(required = false) Integer anioHasta,
+            @RequestParam(required = false) String placa,
+            @RequestParam(required = false) String despuesDe,
+            @RequestParam(defaultValue = "50") int size) {
+        FiltroBusquedaVehiculos filtro = new FiltroBusquedaVehiculos(
+                estado, marcaId, tipoId, combustible, anioDesde, anioHasta, placa);
+        log.debug("Solicitud para buscar vehículos: {}", filtro);
+        return ResponseEntity.ok(busquedaVehiculoService.buscar(filtro, despuesDe, size));
+    }
+
+    // Consultas compactas servidas desde el índice en memoria, pensadas para el flujo de reservas
+    @GetMapping("/flota/resumen")
+    public ResponseEntity<ResumenFlotaDto> resumenFlota() {
+        log.debug("Solicitud para obtener resumen de la flota");
+        return ResponseEntity.ok(vehiculoService.obtenerResumenFlota());
+    }
+
+    @GetMapping("/flota/disponibles")
+    public ResponseEntity<List<UUID>> listarIdsDisponibles(
+            @RequestParam(required = false) Integer tipoId,
+            @RequestParam(required = false) Long marcaId) {
+        log.debug("Solicitud para listar ids disponibles (tipo: {}, marca: {})", tipoId, marcaId);
+        return ResponseEntity.ok(vehiculoService.listarIdsDisponibles(tipoId, marcaId));
+    }
+
+    @GetMapping("/flota/{id}")
+    public ResponseEntity<EstadoFlotaDto> obtenerEstadoFlota(@PathVariable UUID id) {
+        log.debug("Solicitud para obtener estado en flota del vehículo: {}", id);
+        return ResponseEntity.ok(vehiculoService.obtenerEstadoFlota(id));
+    }
+
+    // Cambios posteriores a "desde"; con espera > 0 la respuesta se retiene hasta que haya alguno
+    @GetMapping("/eventos")
+    public CompletableFuture<ResponseEntity<EventosVehiculoDto>> leerEventos(
+            @RequestParam(defaultValue = "0") long desde,
+            @RequestParam(defaultValue = "500") int limite,
+            @RequestParam(defaultValue = "0") int espera) {
+        log.debug("Solicitud de eventos de vehículos desde {} (espera {}s)", desde, espera);
+        return eventoVehiculoService.leer(desde, limite, Duration.ofSeconds(espera))
+                .thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/estado/{estado}")
     public ResponseEntity<List<Vehiculo>> listarPorEstado(@PathVariable EstadoVehiculo estado) {
         log.debug("Solicitud para listar vehículos por estado: {}", estado);
@@ -52,12 +127,30 @@ public class VehiculoController {
         return ResponseEntity.ok(vehiculoService.listarPorMarca(marcaId));
     }
 
+    @GetMapping("/marca/{marcaId}/paginado")
+    public ResponseEntity<PagedModel<Vehiculo>> listarPorMarcaPaginado(
+            @PathVariable Long marcaId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.debug("Solicitud para listar vehículos por marca ID: {} (página {})", marcaId, page);
+        return ResponseEntity.ok(new PagedModel<>(vehiculoService.listarPorMarca(marcaId, page, size)));
+    }
+
     @GetMapping("/tipo/{tipoId}")
     public ResponseEntity<List<Vehiculo>> listarPorTipo(@PathVariable Long tipoId) {
         log.debug("Solicitud para listar vehículos por tipo ID: {}", tipoId);
         return ResponseEntity.ok(vehiculoService.listarPorTipo(tipoId));
     }
 
+    @GetMapping("/tipo/{tipoId}/paginado")
+    public ResponseEntity<PagedModel<Vehiculo>> listarPorTipoPaginado(
+            @PathVariable Long tipoId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.debug("Solicitud para listar vehículos por tipo ID: {} (página {})", tipoId, page);
+        return ResponseEntity.ok(new PagedModel<>(vehiculoService.listarPorTipo(tipoId, page, size)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Vehiculo> obtenerPorId(@PathVariable UUID id) {
         log.debug("Solicitud para obtener vehículo con ID: {}", id);
@@ -76,6 +169,19 @@ public class VehiculoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(vehiculoService.crearVehiculo(vehiculo));
     }
 
+    @PostMapping(value = "/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResultadoImportacionDto> importar(@RequestBody List<VehiculoRequestDto> vehiculos) {
+        log.info("Solicitud para importar {} vehículos", vehiculos.size());
+        return ResponseEntity.ok(importacionVehiculoService.importar(vehiculos));
+    }
+
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResultadoImportacionDto> importarCsv(@RequestParam("archivo") MultipartFile archivo)
+            throws IOException {
+        log.info("Solicitud para importar vehículos desde CSV: {}", archivo.getOriginalFilename());
+        return ResponseEntity.ok(importacionVehiculoService.importarCsv(archivo.getInputStream()));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Vehiculo> actualizar(@PathVariable UUID id, @Valid @RequestBody VehiculoRequestDto vehiculo) {
         log.info("Solicitud para actualizar vehículo con ID: {}", id);
@@ -130,4 +236,19 @@ public class VehiculoController {
         log.debug("Solicitud para listar vehículos para reportes");
         return ResponseEntity.ok(vehiculoService.listarTodosParaReportes());
     }
+
+    // Un vehículo JSON por línea (NDJSON), escrito a medida que se lee de la base de datos
+    @GetMapping(value = "/para-reportes/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamParaReportes() {
+        log.debug("Solicitud para transmitir vehículos para reportes");
+        StreamingResponseBody cuerpo = salida -> vehiculoService.recorrerTodosParaReportes(vehiculo -> {
+            try {
+                salida.write(objectMapper.writeValueAsBytes(vehiculo));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
 }
@@ -0,0 +1,13 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+
+import java.util.List;
+
+// "siguiente" es la placa a enviar como despuesDe para la página siguiente; nulo en la última
+public record BusquedaVehiculosDto(
+        List<Vehiculo> contenido,
+        int tamanio,
+        String siguiente,
+        long totalElementos
+) {}
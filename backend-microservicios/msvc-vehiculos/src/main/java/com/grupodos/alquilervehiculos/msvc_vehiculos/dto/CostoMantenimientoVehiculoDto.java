@@ -0,0 +1,13 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record CostoMantenimientoVehiculoDto(
+        UUID vehiculoId,
+        String placa,
+        Long cantidadMantenimientos,
+        BigDecimal costoTotal,
+        LocalDate ultimoMantenimiento
+) {}
@@ -0,0 +1,14 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+
+import java.util.UUID;
+
+public record EstadoFlotaDto(
+        UUID id,
+        EstadoVehiculo estado,
+        boolean activo,
+        Integer tipoId,
+        Long marcaId,
+        long version
+) {}
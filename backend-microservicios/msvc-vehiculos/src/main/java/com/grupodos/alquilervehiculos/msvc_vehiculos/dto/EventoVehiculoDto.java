@@ -0,0 +1,16 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record EventoVehiculoDto(
+        long seq,
+        UUID vehiculoId,
+        TipoEventoVehiculo tipo,
+        EstadoVehiculo estado,
+        boolean activo,
+        OffsetDateTime ocurridoEn
+) {}
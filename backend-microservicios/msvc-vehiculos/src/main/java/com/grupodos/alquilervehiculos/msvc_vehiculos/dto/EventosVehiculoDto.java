@@ -0,0 +1,9 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.util.List;
+
+// "ultimo" es la secuencia a enviar como desde en la siguiente lectura
+public record EventosVehiculoDto(
+        List<EventoVehiculoDto> eventos,
+        long ultimo
+) {}
@@ -0,0 +1,15 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoCombustible;
+
+// Criterios opcionales de búsqueda; los nulos no filtran. La placa es un prefijo ya normalizado
+public record FiltroBusquedaVehiculos(
+        EstadoVehiculo estado,
+        Long marcaId,
+        Long tipoId,
+        TipoCombustible combustible,
+        Integer anioDesde,
+        Integer anioHasta,
+        String placa
+) {}
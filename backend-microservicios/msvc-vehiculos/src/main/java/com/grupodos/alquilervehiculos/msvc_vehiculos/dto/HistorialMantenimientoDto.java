@@ -0,0 +1,11 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HistorialMantenimientoDto(
+        UUID vehiculoId,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        boolean finalizado
+) {}
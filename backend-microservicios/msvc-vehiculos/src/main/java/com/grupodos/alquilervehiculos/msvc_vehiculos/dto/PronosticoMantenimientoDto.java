@@ -0,0 +1,13 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record PronosticoMantenimientoDto(
+        UUID vehiculoId,
+        String placa,
+        LocalDate ultimoMantenimiento,   // fecha de alta si nunca tuvo mantenimiento
+        long intervaloDias,
+        LocalDate fechaEstimada,
+        int mantenimientosPrevios
+) {}
@@ -0,0 +1,12 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.util.List;
+
+public record ResultadoImportacionDto(
+        int recibidos,
+        int creados,
+        List<ErrorImportacion> errores
+) {
+    // fila empieza en 1; en CSV no cuenta la cabecera
+    public record ErrorImportacion(int fila, String placa, String mensaje) {}
+}
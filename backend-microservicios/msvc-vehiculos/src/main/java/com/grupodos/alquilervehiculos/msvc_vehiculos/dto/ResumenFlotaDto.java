@@ -0,0 +1,11 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+
+import java.util.Map;
+
+// Cantidad de vehículos activos por estado
+public record ResumenFlotaDto(
+        Map<EstadoVehiculo, Integer> porEstado,
+        int totalActivos
+) {}
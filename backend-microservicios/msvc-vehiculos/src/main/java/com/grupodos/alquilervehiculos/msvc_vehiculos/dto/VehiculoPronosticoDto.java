@@ -0,0 +1,10 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record VehiculoPronosticoDto(
+        UUID id,
+        String placa,
+        OffsetDateTime creadoEn
+) {}
@@ -9,7 +9,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "mantenimientos")
+@Table(name = "mantenimientos", indexes = {
+        @Index(name = "idx_mantenimientos_finalizado_fecha_fin", columnList = "finalizado, fecha_fin"),
+        @Index(name = "idx_mantenimientos_vehiculo", columnList = "id_vehiculo")
+})
 @Getter
 @Setter
 @NoArgsConstructor
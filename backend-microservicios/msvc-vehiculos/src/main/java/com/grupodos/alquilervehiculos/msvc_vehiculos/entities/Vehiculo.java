@@ -11,7 +11,10 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "vehiculos")
+@Table(name = "vehiculos", indexes = {
+        @Index(name = "idx_vehiculos_tipo_activo_estado", columnList = "id_tipo, activo, estado"),
+        @Index(name = "idx_vehiculos_modelo_activo", columnList = "id_modelo, activo")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,6 +24,8 @@ public class Vehiculo {
     @Column(name = "id_vehiculo")
     private UUID id;
 
+    // Además del índice único, la búsqueda por prefijo usa
+    // CREATE INDEX idx_vehiculos_placa_prefijo ON vehiculos (placa text_pattern_ops)
     @Column(nullable = false, unique = true)
     private String placa;
 
@@ -51,4 +56,8 @@ public class Vehiculo {
 
     @Column(nullable = false)
     private boolean activo;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
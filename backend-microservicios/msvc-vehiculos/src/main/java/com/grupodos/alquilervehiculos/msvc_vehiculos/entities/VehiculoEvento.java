@@ -0,0 +1,42 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.entities;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Registro de solo inserción: cada cambio de un vehículo con su estado resultante. Las filas se
+// insertan por lote JDBC en EventoVehiculoService (seq con nextval en la misma sentencia)
+@Entity
+@Table(name = "vehiculo_eventos")
+@Getter
+@Setter
+@NoArgsConstructor
+public class VehiculoEvento {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehiculo_eventos_seq")
+    @SequenceGenerator(name = "vehiculo_eventos_seq", sequenceName = "vehiculo_eventos_seq", allocationSize = 1)
+    private Long seq;
+
+    @Column(name = "id_vehiculo", nullable = false, updatable = false)
+    private UUID vehiculoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private TipoEventoVehiculo tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private EstadoVehiculo estado;
+
+    @Column(nullable = false, updatable = false)
+    private boolean activo;
+
+    @Column(name = "ocurrido_en", nullable = false, updatable = false)
+    private OffsetDateTime ocurridoEn;
+}
@@ -0,0 +1,10 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums;
+
+public enum TipoEventoVehiculo {
+    CREADO,
+    ACTUALIZADO,
+    ESTADO_CAMBIADO,
+    DESACTIVADO,
+    RESTAURADO,
+    ELIMINADO
+}
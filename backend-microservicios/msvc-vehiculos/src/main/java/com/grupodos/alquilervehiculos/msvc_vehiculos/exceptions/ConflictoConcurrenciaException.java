@@ -0,0 +1,7 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions;
+
+public class ConflictoConcurrenciaException extends RuntimeException {
+    public ConflictoConcurrenciaException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -19,6 +20,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // ConcurrencyFailureException cubre versiones obsoletas, bloqueos no obtenidos y deadlocks
+    @ExceptionHandler({ConflictoConcurrenciaException.class, ConcurrencyFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConcurrencyConflict(RuntimeException ex) {
+        log.warn("Conflicto de concurrencia: {}", ex.getMessage());
+        String mensaje = ex instanceof ConflictoConcurrenciaException
+                ? ex.getMessage()
+                : "El registro está siendo modificado por otra operación; recargue e intente nuevamente";
+        ErrorResponse error = new ErrorResponse("CONFLICTO_CONCURRENCIA", mensaje);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler({
             VehiculoNotFoundException.class,
             MarcaNotFoundException.class,
@@ -1,9 +1,15 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.repositories;
 
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.CostoMantenimientoVehiculoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.HistorialMantenimientoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Mantenimiento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,4 +19,34 @@ public interface MantenimientoRepository extends JpaRepository<Mantenimiento, Lo
     List<Mantenimiento> findByVehiculoIdAndFinalizadoFalse(UUID vehiculoId);
     List<Mantenimiento> findByFinalizadoFalse();
     List<Mantenimiento> findByVehiculoIdAndFinalizadoTrueOrderByFechaFinDesc(UUID vehiculoId);
+    List<Mantenimiento> findByFinalizadoFalseAndFechaFinBefore(LocalDate fechaLimite);
+
+    @Query("SELECT COALESCE(SUM(m.costo), 0) FROM Mantenimiento m WHERE m.vehiculo.id = :vehiculoId")
+    BigDecimal sumarCostoPorVehiculo(@Param("vehiculoId") UUID vehiculoId);
+
+    // Vehículos sin mantenimientos no aparecen
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.CostoMantenimientoVehiculoDto(
+                v.id, v.placa, COUNT(m), SUM(m.costo), MAX(m.fechaFin))
+            FROM Mantenimiento m
+            JOIN m.vehiculo v
+            GROUP BY v.id, v.placa
+            ORDER BY SUM(m.costo) DESC
+            """)
+    List<CostoMantenimientoVehiculoDto> sumarCostosPorVehiculo();
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.HistorialMantenimientoDto(
+                m.vehiculo.id, m.fechaInicio, m.fechaFin, m.finalizado)
+            FROM Mantenimiento m
+            """)
+    List<HistorialMantenimientoDto> findAllHistorial();
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.HistorialMantenimientoDto(
+                m.vehiculo.id, m.fechaInicio, m.fechaFin, m.finalizado)
+            FROM Mantenimiento m
+            WHERE m.vehiculo.id = :vehiculoId
+            """)
+    List<HistorialMantenimientoDto> findHistorial(@Param("vehiculoId") UUID vehiculoId);
 }
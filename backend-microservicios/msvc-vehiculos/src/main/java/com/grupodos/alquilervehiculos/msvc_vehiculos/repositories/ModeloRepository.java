@@ -2,6 +2,7 @@ package com.grupodos.alquilervehiculos.msvc_vehiculos.repositories;
 
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Modelo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,7 @@ import java.util.List;
 public interface ModeloRepository extends JpaRepository<Modelo, Long> {
     List<Modelo> findByMarcaId(Long marcaId);
     boolean existsByNombreAndMarcaId(String nombre, Long marcaId);
+
+    @Query("SELECT m FROM Modelo m JOIN FETCH m.marca")
+    List<Modelo> findAllConMarca();
 }
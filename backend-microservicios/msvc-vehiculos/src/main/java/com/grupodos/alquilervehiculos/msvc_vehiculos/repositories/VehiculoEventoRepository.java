@@ -0,0 +1,19 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.repositories;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.VehiculoEvento;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VehiculoEventoRepository extends JpaRepository<VehiculoEvento, Long> {
+    List<VehiculoEvento> findBySeqGreaterThanOrderBySeqAsc(Long desde, Limit limite);
+
+    // Advisory lock de PostgreSQL que se libera al terminar la transacción
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:clave)", nativeQuery = true)
+    Integer bloquearSecuencia(@Param("clave") long clave);
+}
@@ -1,20 +1,111 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.repositories;
 
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoPronosticoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoResponseDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehiculoRepository extends JpaRepository<Vehiculo, UUID> {
-    List<Vehiculo> findByModeloMarcaId(Long marcaId);
-    List<Vehiculo> findByTipoVehiculoId(Long tipoId);
+public interface VehiculoRepository extends JpaRepository<Vehiculo, UUID>, JpaSpecificationExecutor<Vehiculo> {
+    @EntityGraph(attributePaths = {"modelo", "modelo.marca", "tipoVehiculo"})
+    List<Vehiculo> findByActivoTrue();
+
+    @EntityGraph(attributePaths = {"modelo", "modelo.marca", "tipoVehiculo"})
+    List<Vehiculo> findByModeloMarcaIdAndActivoTrue(Long marcaId);
+
+    @EntityGraph(attributePaths = {"modelo", "modelo.marca", "tipoVehiculo"})
+    Page<Vehiculo> findByModeloMarcaIdAndActivoTrue(Long marcaId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"modelo", "modelo.marca", "tipoVehiculo"})
+    List<Vehiculo> findByTipoVehiculoIdAndActivoTrue(Long tipoId);
+
+    @EntityGraph(attributePaths = {"modelo", "modelo.marca", "tipoVehiculo"})
+    Page<Vehiculo> findByTipoVehiculoIdAndActivoTrue(Long tipoId, Pageable pageable);
+
     boolean existsByPlaca(String placa);
+
+    @Query("SELECT v.estado FROM Vehiculo v WHERE v.id = :id")
+    Optional<EstadoVehiculo> findEstadoById(@Param("id") UUID id);
+
+    // Solo actualiza si el estado sigue siendo el leído; devuelve las filas afectadas (0 o 1)
+    @Modifying
+    @Query("""
+            UPDATE Vehiculo v SET v.estado = :nuevo, v.version = v.version + 1
+            WHERE v.id = :id AND v.estado = :actual
+            """)
+    int cambiarEstado(@Param("id") UUID id, @Param("actual") EstadoVehiculo actual, @Param("nuevo") EstadoVehiculo nuevo);
+
+    @Query("SELECT v.placa FROM Vehiculo v WHERE v.placa IN :placas")
+    List<String> findPlacasExistentes(@Param("placas") Collection<String> placas);
+
     Optional<Vehiculo> findByIdAndActivoTrue(UUID id);
     List<Vehiculo> findByEstadoAndActivoTrue(EstadoVehiculo estado);
     List<Vehiculo> findByEstadoInAndActivoTrue(List<EstadoVehiculo> estados);
+
+    String CONSULTA_PARA_REPORTES = """
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoResponseDto(
+                v.id, v.placa, ma.nombre, mo.nombre, t.nombre, CAST(v.estado AS String), v.activo)
+            FROM Vehiculo v
+            JOIN v.modelo mo
+            JOIN mo.marca ma
+            JOIN v.tipoVehiculo t
+            ORDER BY v.placa
+            """;
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto(
+                v.id, v.estado, v.activo, v.tipoVehiculo.id, v.modelo.marca.id, v.version)
+            FROM Vehiculo v
+            """)
+    List<EstadoFlotaDto> findAllEstadoFlota();
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto(
+                v.id, v.estado, v.activo, v.tipoVehiculo.id, v.modelo.marca.id, v.version)
+            FROM Vehiculo v
+            WHERE v.id = :id
+            """)
+    Optional<EstadoFlotaDto> findEstadoFlotaById(@Param("id") UUID id);
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoPronosticoDto(v.id, v.placa, v.creadoEn)
+            FROM Vehiculo v
+            WHERE v.activo = true
+            """)
+    List<VehiculoPronosticoDto> findAllActivosParaPronostico();
+
+    @Query("""
+            SELECT new com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoPronosticoDto(v.id, v.placa, v.creadoEn)
+            FROM Vehiculo v
+            WHERE v.id = :id AND v.activo = true
+            """)
+    Optional<VehiculoPronosticoDto> findActivoParaPronostico(@Param("id") UUID id);
+
+    // Toda la flota en una sola sentencia SQL, sin cargar entidades
+    @Query(CONSULTA_PARA_REPORTES)
+    List<VehiculoResponseDto> findAllParaReportes();
+
+    // Igual que findAllParaReportes pero leyendo del cursor por bloques; requiere transacción abierta
+    @Query(CONSULTA_PARA_REPORTES)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<VehiculoResponseDto> streamAllParaReportes();
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.repositories;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.FiltroBusquedaVehiculos;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criterios de búsqueda de vehículos activos. El prefijo de placa se busca con
+ * placa LIKE 'ABC%', que resuelve el índice idx_vehiculos_placa_prefijo (text_pattern_ops)
+ * sin depender de la intercalación de la base de datos.
+ */
+public final class VehiculoSpecifications {
+
+    private static final char ESCAPE_LIKE = '\\';
+
+    private VehiculoSpecifications() {
+    }
+
+    public static Specification<Vehiculo> filtro(FiltroBusquedaVehiculos filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            predicados.add(cb.isTrue(root.get("activo")));
+
+            if (filtro.estado() != null) {
+                predicados.add(cb.equal(root.get("estado"), filtro.estado()));
+            }
+            if (filtro.marcaId() != null) {
+                predicados.add(cb.equal(root.get("modelo").get("marca").get("id"), filtro.marcaId()));
+            }
+            if (filtro.tipoId() != null) {
+                predicados.add(cb.equal(root.get("tipoVehiculo").get("id"), filtro.tipoId().intValue()));
+            }
+            if (filtro.combustible() != null) {
+                predicados.add(cb.equal(root.get("combustible"), filtro.combustible()));
+            }
+            if (filtro.anioDesde() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("anioFabricacion"), filtro.anioDesde()));
+            }
+            if (filtro.anioHasta() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("anioFabricacion"), filtro.anioHasta()));
+            }
+            if (filtro.placa() != null) {
+                predicados.add(cb.like(root.get("placa"), escaparLike(filtro.placa()) + "%", ESCAPE_LIKE));
+            }
+
+            return cb.and(predicados.toArray(Predicate[]::new));
+        };
+    }
+
+    // Paginación por clave: solo las placas posteriores a la última de la página anterior
+    public static Specification<Vehiculo> despuesDePlaca(String placa) {
+        return (root, query, cb) -> cb.greaterThan(root.get("placa"), placa);
+    }
+
+    // El prefijo se compara literalmente: % y _ no actúan como comodines
+    private static String escaparLike(String prefijo) {
+        return prefijo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,78 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.BusquedaVehiculosDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.FiltroBusquedaVehiculos;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoSpecifications;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.ConteoBusquedaCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Búsqueda de vehículos activos combinando criterios, ordenada por placa y paginada por clave:
+ * cada página continúa desde la última placa devuelta, así que su costo no depende de cuántas
+ * páginas se hayan recorrido ni del tamaño de la flota.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BusquedaVehiculoService {
+
+    private static final int MAXIMO_TAMANIO_PAGINA = 500;
+    private static final String PATRON_PLACA = "^[A-Z0-9]{1,8}$";
+
+    private final VehiculoRepository vehiculoRepository;
+    private final ConteoBusquedaCache conteoBusquedaCache;
+
+    @Transactional(readOnly = true)
+    public BusquedaVehiculosDto buscar(FiltroBusquedaVehiculos filtro, String despuesDe, int tamanio) {
+        FiltroBusquedaVehiculos normalizado = normalizar(filtro);
+        validar(normalizado, tamanio);
+        log.debug("Buscando vehículos con filtro {} después de '{}'", normalizado, despuesDe);
+
+        Specification<Vehiculo> criterios = VehiculoSpecifications.filtro(normalizado);
+        Specification<Vehiculo> pagina = StringUtils.isBlank(despuesDe)
+                ? criterios
+                : criterios.and(VehiculoSpecifications.despuesDePlaca(StringUtils.upperCase(StringUtils.trim(despuesDe))));
+
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        List<Vehiculo> filas = vehiculoRepository.findBy(pagina, consulta -> consulta
+                .project("modelo", "modelo.marca", "tipoVehiculo")
+                .sortBy(Sort.by("placa"))
+                .limit(tamanio + 1)
+                .all());
+
+        boolean haySiguiente = filas.size() > tamanio;
+        List<Vehiculo> contenido = haySiguiente ? filas.subList(0, tamanio) : filas;
+        String siguiente = haySiguiente ? contenido.get(contenido.size() - 1).getPlaca() : null;
+        long total = conteoBusquedaCache.obtener(normalizado, () -> vehiculoRepository.count(criterios));
+
+        return new BusquedaVehiculosDto(List.copyOf(contenido), tamanio, siguiente, total);
+    }
+
+    private FiltroBusquedaVehiculos normalizar(FiltroBusquedaVehiculos filtro) {
+        String placa = StringUtils.isBlank(filtro.placa()) ? null : StringUtils.upperCase(StringUtils.trim(filtro.placa()));
+        return new FiltroBusquedaVehiculos(filtro.estado(), filtro.marcaId(), filtro.tipoId(), filtro.combustible(),
+                filtro.anioDesde(), filtro.anioHasta(), placa);
+    }
+
+    private void validar(FiltroBusquedaVehiculos filtro, int tamanio) {
+        if (tamanio < 1 || tamanio > MAXIMO_TAMANIO_PAGINA) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAXIMO_TAMANIO_PAGINA);
+        }
+        if (filtro.placa() != null && !filtro.placa().matches(PATRON_PLACA)) {
+            throw new IllegalArgumentException("El prefijo de placa solo puede contener letras y números");
+        }
+        if (filtro.anioDesde() != null && filtro.anioHasta() != null && filtro.anioDesde() > filtro.anioHasta()) {
+            throw new IllegalArgumentException("El año inicial no puede ser mayor al año final");
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ResultadoImportacionDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ResultadoImportacionDto.ErrorImportacion;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoRequestDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Modelo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.TipoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoCombustible;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.eventos.EventoVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.flota.IndiceFlota;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.pronostico.PronosticoMantenimiento;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Alta masiva de vehículos (JSON o CSV). Las placas se comprueban contra la base con una sola
+ * consulta por bloque, modelos y tipos salen de {@link CatalogoCache} y las inserciones se
+ * agrupan con el batching JDBC de Hibernate. Las filas inválidas se informan y no impiden
+ * importar las demás.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImportacionVehiculoService {
+
+    private static final int MAXIMO_FILAS = 5000;
+    private static final int TAMANIO_BLOQUE = 500;
+    private static final List<String> COLUMNAS_CSV = List.of(
+            "placa", "modeloId", "tipoVehiculoId", "anioFabricacion", "combustible", "descripcion");
+
+    private final VehiculoRepository vehiculoRepository;
+    private final CatalogoCache catalogoCache;
+    private final IndiceFlota indiceFlota;
+    private final EventoVehiculoService eventoVehiculoService;
+    private final PronosticoMantenimiento pronosticoMantenimiento;
+    private final EntityManager entityManager;
+    private final Validator validator;
+
+    @Transactional
+    public ResultadoImportacionDto importar(List<VehiculoRequestDto> vehiculos) {
+        List<Fila> filas = new ArrayList<>(vehiculos.size());
+        List<ErrorImportacion> errores = new ArrayList<>();
+        for (int i = 0; i < vehiculos.size(); i++) {
+            VehiculoRequestDto vehiculo = vehiculos.get(i);
+            // Un elemento null en el arreglo JSON es una fila inválida más, no un error de la solicitud
+            if (vehiculo == null) {
+                errores.add(new ErrorImportacion(i + 1, null, "La fila no contiene datos del vehículo"));
+                continue;
+            }
+            filas.add(new Fila(i + 1, vehiculo));
+        }
+        return importar(filas, errores);
+    }
+
+    @Transactional
+    public ResultadoImportacionDto importarCsv(InputStream contenido) {
+        List<Fila> filas = new ArrayList<>();
+        List<ErrorImportacion> errores = new ArrayList<>();
+        leerCsv(contenido, filas, errores);
+        return importar(filas, errores);
+    }
+
+    private ResultadoImportacionDto importar(List<Fila> filas, List<ErrorImportacion> errores) {
+        int recibidos = filas.size() + errores.size();
+        if (recibidos == 0) {
+            throw new IllegalArgumentException("No se recibieron vehículos para importar");
+        }
+        if (recibidos > MAXIMO_FILAS) {
+            throw new IllegalArgumentException("No se pueden importar más de " + MAXIMO_FILAS + " vehículos a la vez");
+        }
+        log.info("Importando {} vehículos", recibidos);
+
+        List<Fila> normalizadas = filas.stream()
+                .map(fila -> new Fila(fila.numero(), normalizar(fila.datos())))
+                .toList();
+
+        Set<String> existentes = placasExistentes(normalizadas);
+        Set<String> vistas = new HashSet<>();
+        OffsetDateTime ahora = OffsetDateTime.now();
+        int creados = 0;
+
+        for (Fila fila : normalizadas) {
+            VehiculoRequestDto dto = fila.datos();
+            int numero = fila.numero();
+
+            String error = validar(dto, existentes, vistas);
+            Optional<Modelo> modelo = Optional.empty();
+            Optional<TipoVehiculo> tipo = Optional.empty();
+            if (error == null) {
+                modelo = catalogoCache.buscarModelo(dto.modeloId());
+                tipo = catalogoCache.buscarTipo(dto.tipoVehiculoId());
+                error = modelo.isEmpty() ? "Modelo no encontrado con ID: " + dto.modeloId()
+                        : tipo.isEmpty() ? "Tipo de vehículo no encontrado con ID: " + dto.tipoVehiculoId()
+                        : null;
+            }
+            if (error != null) {
+                errores.add(new ErrorImportacion(numero, dto.placa(), error));
+                continue;
+            }
+
+            Vehiculo vehiculo = new Vehiculo();
+            vehiculo.setPlaca(dto.placa());
+            vehiculo.setModelo(modelo.get());
+            vehiculo.setTipoVehiculo(tipo.get());
+            vehiculo.setAnioFabricacion(dto.anioFabricacion());
+            vehiculo.setCombustible(dto.combustible());
+            vehiculo.setDescripcion(dto.descripcion());
+            vehiculo.setEstado(EstadoVehiculo.DISPONIBLE);
+            vehiculo.setActivo(true);
+            vehiculo.setCreadoEn(ahora);
+
+            // El UUID lo genera Hibernate en memoria al persistir, sin ir a la base
+            entityManager.persist(vehiculo);
+            indiceFlota.registrar(vehiculo);
+            eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.CREADO);
+            pronosticoMantenimiento.registrarNuevo(vehiculo);
+            vistas.add(dto.placa());
+            creados++;
+
+            if (creados % TAMANIO_BLOQUE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        errores.sort(Comparator.comparingInt(ErrorImportacion::fila));
+        log.info("Importación terminada: {} creados, {} con error", creados, errores.size());
+        return new ResultadoImportacionDto(recibidos, creados, List.copyOf(errores));
+    }
+
+    private VehiculoRequestDto normalizar(VehiculoRequestDto dto) {
+        return new VehiculoRequestDto(
+                StringUtils.upperCase(StringUtils.trim(dto.placa())),
+                dto.modeloId(),
+                dto.tipoVehiculoId(),
+                dto.anioFabricacion(),
+                dto.combustible(),
+                StringUtils.trim(dto.descripcion()));
+    }
+
+    private String validar(VehiculoRequestDto dto, Set<String> existentes, Set<String> vistas) {
+        Set<ConstraintViolation<VehiculoRequestDto>> violaciones = validator.validate(dto);
+        if (!violaciones.isEmpty()) {
+            return violaciones.iterator().next().getMessage();
+        }
+        if (existentes.contains(dto.placa())) {
+            return "Ya existe un vehículo con la placa: " + dto.placa();
+        }
+        if (vistas.contains(dto.placa())) {
+            return "La placa " + dto.placa() + " está repetida en la importación";
+        }
+        return null;
+    }
+
+    private Set<String> placasExistentes(List<Fila> filas) {
+        List<String> placas = filas.stream()
+                .map(fila -> fila.datos().placa())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Set<String> existentes = new HashSet<>();
+        for (int desde = 0; desde < placas.size(); desde += TAMANIO_BLOQUE) {
+            List<String> bloque = placas.subList(desde, Math.min(desde + TAMANIO_BLOQUE, placas.size()));
+            existentes.addAll(vehiculoRepository.findPlacasExistentes(bloque));
+        }
+        return existentes;
+    }
+
+    private void leerCsv(InputStream contenido, List<Fila> filas, List<ErrorImportacion> errores) {
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(contenido, StandardCharsets.UTF_8))) {
+            String cabecera = lector.readLine();
+            if (cabecera == null) {
+                throw new IllegalArgumentException("El archivo CSV está vacío");
+            }
+
+            // Se tolera la marca BOM que agrega Excel al guardar como CSV UTF-8
+            List<String> columnas = separarCsv(cabecera.replace("\uFEFF", "")).stream().map(String::trim).toList();
+            if (!columnas.equals(COLUMNAS_CSV)) {
+                throw new IllegalArgumentException("La cabecera del CSV debe ser: " + String.join(",", COLUMNAS_CSV));
+            }
+
+            String linea;
+            int numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                numero++;
+                if (filas.size() + errores.size() >= MAXIMO_FILAS) {
+                    throw new IllegalArgumentException("No se pueden importar más de " + MAXIMO_FILAS + " vehículos a la vez");
+                }
+
+                List<String> valores = separarCsv(linea);
+                try {
+                    filas.add(convertirFila(numero, valores));
+                } catch (IllegalArgumentException e) {
+                    errores.add(new ErrorImportacion(numero, valores.isEmpty() ? null : valores.get(0).trim(), e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el archivo CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private Fila convertirFila(int numero, List<String> valores) {
+        if (valores.size() != COLUMNAS_CSV.size()) {
+            throw new IllegalArgumentException("Se esperaban " + COLUMNAS_CSV.size() + " columnas y hay " + valores.size());
+        }
+        return new Fila(numero, new VehiculoRequestDto(
+                valores.get(0),
+                numero(valores.get(1), "modeloId"),
+                numero(valores.get(2), "tipoVehiculoId"),
+                StringUtils.isBlank(valores.get(3)) ? null : Math.toIntExact(numero(valores.get(3), "anioFabricacion")),
+                combustible(valores.get(4)),
+                valores.get(5)));
+    }
+
+    private Long numero(String valor, String columna) {
+        if (StringUtils.isBlank(valor)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido en " + columna + ": " + valor);
+        }
+    }
+
+    private TipoCombustible combustible(String valor) {
+        if (StringUtils.isBlank(valor)) {
+            return null;
+        }
+        try {
+            return TipoCombustible.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Combustible inválido: " + valor);
+        }
+    }
+
+    // Separa una línea CSV respetando campos entre comillas dobles ("" escapa una comilla)
+    private List<String> separarCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+
+    // Vehículo a importar junto con su número de fila en la solicitud
+    private record Fila(int numero, VehiculoRequestDto datos) {}
+}
@@ -1,13 +1,19 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
 
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.CostoMantenimientoVehiculoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.MantenimientoRequestDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.PronosticoMantenimientoDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Mantenimiento;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.MantenimientoNotFoundException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.VehiculoNotFoundException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.MantenimientoRepository;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.eventos.EventoVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.flota.IndiceFlota;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.pronostico.PronosticoMantenimiento;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
@@ -27,8 +33,14 @@ import java.util.UUID;
 @Transactional
 public class MantenimientoService {
 
+    private static final int MAXIMO_PRONOSTICO = 1000;
+
     private final MantenimientoRepository mantenimientoRepository;
     private final VehiculoRepository vehiculoRepository;
+    private final IndiceFlota indiceFlota;
+    private final EventoVehiculoService eventoVehiculoService;
+    private final PronosticoMantenimiento pronosticoMantenimiento;
+    private final TransicionEstadoVehiculo transicionEstadoVehiculo;
 
     public List<Mantenimiento> listarTodos() {
         log.debug("Listando todos los mantenimientos");
@@ -67,18 +79,9 @@ public class MantenimientoService {
     public Mantenimiento crearMantenimiento(MantenimientoRequestDto dto) {
         log.info("Creando mantenimiento para vehículo ID: {}", dto.vehiculoId());
 
-        Vehiculo vehiculo = vehiculoRepository.findById(dto.vehiculoId())
-                .orElseThrow(() -> {
-                    log.error("Vehículo no encontrado para mantenimiento: {}", dto.vehiculoId());
-                    return new VehiculoNotFoundException(dto.vehiculoId());
-                });
-
-        // Validar que el vehículo esté disponible para mantenimiento
-        if (vehiculo.getEstado() != EstadoVehiculo.DISPONIBLE) {
-            log.warn("Intento de crear mantenimiento para vehículo no disponible: {}", vehiculo.getEstado());
-            throw new IllegalStateException(
-                    "El vehículo no está disponible para mantenimiento. Estado actual: " + vehiculo.getEstado()
-            );
+        if (!vehiculoRepository.existsById(dto.vehiculoId())) {
+            log.error("Vehículo no encontrado para mantenimiento: {}", dto.vehiculoId());
+            throw new VehiculoNotFoundException(dto.vehiculoId());
         }
 
         // Verificar que no tenga mantenimientos activos
@@ -88,9 +91,18 @@ public class MantenimientoService {
             throw new IllegalStateException("El vehículo ya tiene mantenimientos en curso");
         }
 
-        // Cambiar estado del vehículo a EN_MANTENIMIENTO
-        vehiculo.setEstado(EstadoVehiculo.EN_MANTENIMIENTO);
-        vehiculoRepository.save(vehiculo);
+        // Cambiar estado del vehículo a EN_MANTENIMIENTO, solo si sigue disponible al actualizar
+        Vehiculo vehiculo = transicionEstadoVehiculo.cambiar(dto.vehiculoId(), EstadoVehiculo.EN_MANTENIMIENTO,
+                estadoActual -> {
+                    if (estadoActual != EstadoVehiculo.DISPONIBLE) {
+                        log.warn("Intento de crear mantenimiento para vehículo no disponible: {}", estadoActual);
+                        throw new IllegalStateException(
+                                "El vehículo no está disponible para mantenimiento. Estado actual: " + estadoActual
+                        );
+                    }
+                });
+        indiceFlota.registrar(vehiculo);
+        eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.ESTADO_CAMBIADO);
 
         Mantenimiento mantenimiento = new Mantenimiento();
         mantenimiento.setVehiculo(vehiculo);
@@ -101,6 +113,7 @@ public class MantenimientoService {
         mantenimiento.setFinalizado(false);
 
         Mantenimiento guardado = mantenimientoRepository.save(mantenimiento);
+        pronosticoMantenimiento.recalcular(vehiculo.getId());
         log.info("Mantenimiento creado exitosamente con ID: {} para vehículo: {}",
                 guardado.getId(), dto.vehiculoId());
         return guardado;
@@ -119,11 +132,13 @@ public class MantenimientoService {
         mantenimiento.setFinalizado(true);
 
         // Cambiar estado del vehículo a DISPONIBLE
-        Vehiculo vehiculo = mantenimiento.getVehiculo();
-        vehiculo.setEstado(EstadoVehiculo.DISPONIBLE);
-        vehiculoRepository.save(vehiculo);
+        Vehiculo vehiculo = transicionEstadoVehiculo.cambiar(mantenimiento.getVehiculo().getId(),
+                EstadoVehiculo.DISPONIBLE, estadoActual -> { });
+        indiceFlota.registrar(vehiculo);
+        eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.ESTADO_CAMBIADO);
 
         Mantenimiento finalizado = mantenimientoRepository.save(mantenimiento);
+        pronosticoMantenimiento.recalcular(vehiculo.getId());
         log.info("Mantenimiento finalizado exitosamente: {}", id);
         return finalizado;
     }
@@ -138,20 +153,26 @@ public class MantenimientoService {
 
         // Si cambia el vehículo, validar el nuevo vehículo
         if (!mantenimiento.getVehiculo().getId().equals(dto.vehiculoId())) {
-            Vehiculo nuevoVehiculo = vehiculoRepository.findById(dto.vehiculoId())
-                    .orElseThrow(() -> new VehiculoNotFoundException(dto.vehiculoId()));
+            if (!vehiculoRepository.existsById(dto.vehiculoId())) {
+                throw new VehiculoNotFoundException(dto.vehiculoId());
+            }
 
             // Revertir estado del vehículo anterior
-            Vehiculo vehiculoAnterior = mantenimiento.getVehiculo();
-            vehiculoAnterior.setEstado(EstadoVehiculo.DISPONIBLE);
-            vehiculoRepository.save(vehiculoAnterior);
+            Vehiculo vehiculoAnterior = transicionEstadoVehiculo.cambiar(mantenimiento.getVehiculo().getId(),
+                    EstadoVehiculo.DISPONIBLE, estadoActual -> { });
+            indiceFlota.registrar(vehiculoAnterior);
+            eventoVehiculoService.registrar(vehiculoAnterior, TipoEventoVehiculo.ESTADO_CAMBIADO);
+            pronosticoMantenimiento.recalcular(vehiculoAnterior.getId());
 
             // Validar y cambiar estado del nuevo vehículo
-            if (nuevoVehiculo.getEstado() != EstadoVehiculo.DISPONIBLE) {
-                throw new IllegalStateException("El nuevo vehículo no está disponible para mantenimiento");
-            }
-            nuevoVehiculo.setEstado(EstadoVehiculo.EN_MANTENIMIENTO);
-            vehiculoRepository.save(nuevoVehiculo);
+            Vehiculo nuevoVehiculo = transicionEstadoVehiculo.cambiar(dto.vehiculoId(),
+                    EstadoVehiculo.EN_MANTENIMIENTO, estadoActual -> {
+                        if (estadoActual != EstadoVehiculo.DISPONIBLE) {
+                            throw new IllegalStateException("El nuevo vehículo no está disponible para mantenimiento");
+                        }
+                    });
+            indiceFlota.registrar(nuevoVehiculo);
+            eventoVehiculoService.registrar(nuevoVehiculo, TipoEventoVehiculo.ESTADO_CAMBIADO);
 
             mantenimiento.setVehiculo(nuevoVehiculo);
         }
@@ -162,6 +183,7 @@ public class MantenimientoService {
         mantenimiento.setCosto(ObjectUtils.defaultIfNull(dto.costo(), mantenimiento.getCosto()));
 
         Mantenimiento actualizado = mantenimientoRepository.save(mantenimiento);
+        pronosticoMantenimiento.recalcular(mantenimiento.getVehiculo().getId());
         log.info("Mantenimiento actualizado exitosamente: {}", id);
         return actualizado;
     }
@@ -172,29 +194,38 @@ public class MantenimientoService {
 
         // Si el mantenimiento está activo, revertir el estado del vehículo
         if (!mantenimiento.isFinalizado()) {
-            Vehiculo vehiculo = mantenimiento.getVehiculo();
-            vehiculo.setEstado(EstadoVehiculo.DISPONIBLE);
-            vehiculoRepository.save(vehiculo);
+            Vehiculo vehiculo = transicionEstadoVehiculo.cambiar(mantenimiento.getVehiculo().getId(),
+                    EstadoVehiculo.DISPONIBLE, estadoActual -> { });
+            indiceFlota.registrar(vehiculo);
+            eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.ESTADO_CAMBIADO);
             log.debug("Estado del vehículo {} revertido a DISPONIBLE", vehiculo.getId());
         }
 
         mantenimientoRepository.delete(mantenimiento);
+        pronosticoMantenimiento.recalcular(mantenimiento.getVehiculo().getId());
         log.debug("Mantenimiento eliminado: {}", id);
     }
 
     public BigDecimal obtenerCostoTotalMantenimientos(UUID vehiculoId) {
         log.debug("Calculando costo total de mantenimientos para vehículo: {}", vehiculoId);
-        List<Mantenimiento> mantenimientos = mantenimientoRepository.findByVehiculoId(vehiculoId);
+        return mantenimientoRepository.sumarCostoPorVehiculo(vehiculoId);
+    }
 
-        return mantenimientos.stream()
-                .map(Mantenimiento::getCosto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public List<CostoMantenimientoVehiculoDto> obtenerCostosPorVehiculo() {
+        log.debug("Calculando costo de mantenimientos por vehículo para toda la flota");
+        return mantenimientoRepository.sumarCostosPorVehiculo();
+    }
+
+    public List<PronosticoMantenimientoDto> obtenerPronostico(LocalDate hasta, int limite) {
+        if (limite < 1 || limite > MAXIMO_PRONOSTICO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAXIMO_PRONOSTICO);
+        }
+        log.debug("Obteniendo pronóstico de mantenimientos hasta {} (límite {})", hasta, limite);
+        return pronosticoMantenimiento.proximos(hasta, limite);
     }
 
     public List<Mantenimiento> listarMantenimientosProximosAVencer(LocalDate fechaLimite) {
         log.debug("Listando mantenimientos próximos a vencer antes de: {}", fechaLimite);
-        return mantenimientoRepository.findByFinalizadoFalse().stream()
-                .filter(m -> m.getFechaFin() != null && m.getFechaFin().isBefore(fechaLimite))
-                .toList();
+        return mantenimientoRepository.findByFinalizadoFalseAndFechaFinBefore(fechaLimite);
     }
 }
@@ -7,6 +7,7 @@ import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.MarcaNotFoundExc
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.RecursoDuplicadoException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.MarcaRepository;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.ModeloRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -24,10 +25,12 @@ public class MarcaService {
 
     private final MarcaRepository marcaRepository;
     private final ModeloRepository modeloRepository;
+    private final CatalogoCache catalogoCache;
 
+    @Transactional(readOnly = true)
     public List<Marca> listarTodas() {
         log.debug("Listando todas las marcas");
-        return marcaRepository.findAll();
+        return catalogoCache.marcas();
     }
 
     public Marca obtenerPorId(Long id) {
@@ -75,6 +78,7 @@ public class MarcaService {
                 .filter(Objects::nonNull)
                 .toList();
 
+        catalogoCache.invalidar();
         log.info("Marca '{}' creada exitosamente con {} modelos",
                 marcaGuardada.getNombre(), modelosCreados.size());
 
@@ -96,7 +100,9 @@ public class MarcaService {
 
         Marca marca = new Marca();
         marca.setNombre(nombreNormalizado);
-        return marcaRepository.save(marca);
+        Marca guardada = marcaRepository.save(marca);
+        catalogoCache.invalidar();
+        return guardada;
     }
 
     public Marca actualizarMarca(Long id, String nuevoNombre) {
@@ -115,6 +121,8 @@ public class MarcaService {
         }
 
         marca.setNombre(nombreNormalizado);
-        return marcaRepository.save(marca);
+        Marca actualizada = marcaRepository.save(marca);
+        catalogoCache.invalidar();
+        return actualizada;
     }
 }
@@ -8,6 +8,7 @@ import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.ModeloNotFoundEx
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.RecursoDuplicadoException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.MarcaRepository;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.ModeloRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -24,10 +25,12 @@ public class ModeloService {
 
     private final ModeloRepository modeloRepository;
     private final MarcaRepository marcaRepository;
+    private final CatalogoCache catalogoCache;
 
+    @Transactional(readOnly = true)
     public List<Modelo> listarTodos() {
         log.debug("Listando todos los modelos");
-        return modeloRepository.findAll();
+        return catalogoCache.modelos();
     }
 
     public Modelo obtenerPorId(Long id) {
@@ -39,9 +42,10 @@ public class ModeloService {
                 });
     }
 
+    @Transactional(readOnly = true)
     public List<Modelo> listarPorMarca(Long marcaId) {
         log.debug("Listando modelos por marca ID: {}", marcaId);
-        return modeloRepository.findByMarcaId(marcaId);
+        return catalogoCache.modelosPorMarca(marcaId);
     }
 
     public Modelo crearModelo(ModeloRequestDto dto) {
@@ -61,6 +65,7 @@ public class ModeloService {
         modelo.setMarca(marca);
 
         Modelo guardado = modeloRepository.save(modelo);
+        catalogoCache.invalidar();
         log.info("Modelo creado exitosamente con ID: {}", guardado.getId());
         return guardado;
     }
@@ -82,6 +87,7 @@ public class ModeloService {
         existente.setMarca(marca);
 
         Modelo actualizado = modeloRepository.save(existente);
+        catalogoCache.invalidar();
         log.info("Modelo actualizado exitosamente: {}", id);
         return actualizado;
     }
@@ -3,6 +3,7 @@ package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.TipoVehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.TipoVehiculoNotFoundException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.TipoVehiculoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,10 +19,11 @@ import java.util.Optional;
 public class TipoVehiculoService {
 
     private final TipoVehiculoRepository tipoVehiculoRepository;
+    private final CatalogoCache catalogoCache;
 
     public List<TipoVehiculo> listarTodos() {
         log.debug("Listando todos los tipos de vehículo");
-        return tipoVehiculoRepository.findAll();
+        return catalogoCache.tipos();
     }
 
     public TipoVehiculo obtenerPorId(Long id) {
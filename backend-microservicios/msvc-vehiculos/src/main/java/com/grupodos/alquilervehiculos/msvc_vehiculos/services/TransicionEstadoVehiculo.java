@@ -0,0 +1,55 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.ConflictoConcurrenciaException;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.VehiculoNotFoundException;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Cambio de estado de un vehículo seguro ante solicitudes concurrentes (varias réplicas,
+ * contratos y mantenimientos a la vez). Se lee el estado actual, se valida y se aplica con
+ * UPDATE ... WHERE estado = actual: si otro cambio se confirmó en medio no se actualiza ninguna
+ * fila y se vuelve a leer y validar contra el estado nuevo, hasta {@value #MAXIMO_INTENTOS} veces.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TransicionEstadoVehiculo {
+
+    private static final int MAXIMO_INTENTOS = 3;
+
+    private final VehiculoRepository vehiculoRepository;
+    private final EntityManager entityManager;
+
+    // La validación recibe el estado actual y lanza excepción si la transición no procede
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Vehiculo cambiar(UUID id, EstadoVehiculo nuevoEstado, Consumer<EstadoVehiculo> validacion) {
+        for (int intento = 1; intento <= MAXIMO_INTENTOS; intento++) {
+            EstadoVehiculo actual = vehiculoRepository.findEstadoById(id)
+                    .orElseThrow(() -> new VehiculoNotFoundException(id));
+            validacion.accept(actual);
+
+            if (vehiculoRepository.cambiarEstado(id, actual, nuevoEstado) == 1) {
+                Vehiculo vehiculo = vehiculoRepository.findById(id)
+                        .orElseThrow(() -> new VehiculoNotFoundException(id));
+                // La instancia pudo estar ya en la sesión con el estado y la versión anteriores
+                entityManager.refresh(vehiculo);
+                return vehiculo;
+            }
+            log.warn("El estado del vehículo {} cambió durante la transición a {} (intento {} de {})",
+                    id, nuevoEstado, intento, MAXIMO_INTENTOS);
+        }
+        throw new ConflictoConcurrenciaException(
+                "El vehículo " + id + " está siendo modificado por otra operación; intente nuevamente");
+    }
+}
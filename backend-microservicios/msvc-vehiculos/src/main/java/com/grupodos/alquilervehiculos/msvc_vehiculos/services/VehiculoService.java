@@ -1,58 +1,100 @@
 package com.grupodos.alquilervehiculos.msvc_vehiculos.services;
 
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.ResumenFlotaDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoRequestDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoResponseDto;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Modelo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.TipoVehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.ModeloNotFoundException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.RecursoDuplicadoException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.TipoVehiculoNotFoundException;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.exceptions.VehiculoNotFoundException;
-import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.ModeloRepository;
-import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.TipoVehiculoRepository;
 import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache.CatalogoCache;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.eventos.EventoVehiculoService;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.flota.IndiceFlota;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.services.pronostico.PronosticoMantenimiento;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class VehiculoService {
 
+    private static final int MAXIMO_TAMANIO_PAGINA = 500;
+
     private final VehiculoRepository vehiculoRepository;
-    private final ModeloRepository modeloRepository;
-    private final TipoVehiculoRepository tipoVehiculoRepository;
+    private final CatalogoCache catalogoCache;
+    private final IndiceFlota indiceFlota;
+    private final EventoVehiculoService eventoVehiculoService;
+    private final PronosticoMantenimiento pronosticoMantenimiento;
+    private final TransicionEstadoVehiculo transicionEstadoVehiculo;
 
     @Transactional(readOnly = true)
     public List<Vehiculo> listarTodos() {
         log.debug("Listando todos los vehículos activos");
+        return vehiculoRepository.findByActivoTrue();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Vehiculo> listarTodosIncluyendoInactivos() {
+        log.debug("Listando todos los vehículos, incluidos los inactivos");
         return vehiculoRepository.findAll();
     }
 
     @Transactional(readOnly = true)
     public List<Vehiculo> listarPorMarca(Long marcaId) {
         log.debug("Listando vehículos por marca ID: {}", marcaId);
-        return vehiculoRepository.findByModeloMarcaId(marcaId).stream()
-                .filter(Vehiculo::isActivo)
-                .toList();
+        return vehiculoRepository.findByModeloMarcaIdAndActivoTrue(marcaId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Vehiculo> listarPorMarca(Long marcaId, int pagina, int tamanio) {
+        log.debug("Listando vehículos por marca ID: {} (página {}, tamaño {})", marcaId, pagina, tamanio);
+        return vehiculoRepository.findByModeloMarcaIdAndActivoTrue(marcaId, paginaPorPlaca(pagina, tamanio));
     }
 
     @Transactional(readOnly = true)
     public List<Vehiculo> listarPorTipo(Long tipoId) {
         log.debug("Listando vehículos por tipo ID: {}", tipoId);
-        return vehiculoRepository.findByTipoVehiculoId(tipoId).stream()
-                .filter(Vehiculo::isActivo)
-                .toList();
+        return vehiculoRepository.findByTipoVehiculoIdAndActivoTrue(tipoId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Vehiculo> listarPorTipo(Long tipoId, int pagina, int tamanio) {
+        log.debug("Listando vehículos por tipo ID: {} (página {}, tamaño {})", tipoId, pagina, tamanio);
+        return vehiculoRepository.findByTipoVehiculoIdAndActivoTrue(tipoId, paginaPorPlaca(pagina, tamanio));
+    }
+
+    private Pageable paginaPorPlaca(int pagina, int tamanio) {
+        if (pagina < 0) {
+            throw new IllegalArgumentException("El número de página no puede ser negativo");
+        }
+        if (tamanio < 1 || tamanio > MAXIMO_TAMANIO_PAGINA) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAXIMO_TAMANIO_PAGINA);
+        }
+        return PageRequest.of(pagina, tamanio, Sort.by("placa"));
     }
 
     @Transactional(readOnly = true)
@@ -92,13 +134,13 @@ public class VehiculoService {
             throw new RecursoDuplicadoException("Ya existe un vehículo con la placa: " + placaNormalizada);
         }
 
-        Modelo modelo = modeloRepository.findById(dto.modeloId())
+        Modelo modelo = catalogoCache.buscarModelo(dto.modeloId())
                 .orElseThrow(() -> {
                     log.error("Modelo no encontrado con ID: {}", dto.modeloId());
                     return new ModeloNotFoundException(dto.modeloId());
                 });
 
-        TipoVehiculo tipo = tipoVehiculoRepository.findById(dto.tipoVehiculoId())
+        TipoVehiculo tipo = catalogoCache.buscarTipo(dto.tipoVehiculoId())
                 .orElseThrow(() -> {
                     log.error("Tipo de vehículo no encontrado con ID: {}", dto.tipoVehiculoId());
                     return new TipoVehiculoNotFoundException(dto.tipoVehiculoId());
@@ -116,6 +158,9 @@ public class VehiculoService {
         vehiculo.setCreadoEn(OffsetDateTime.now());
 
         Vehiculo guardado = vehiculoRepository.save(vehiculo);
+        indiceFlota.registrar(guardado);
+        eventoVehiculoService.registrar(guardado, TipoEventoVehiculo.CREADO);
+        pronosticoMantenimiento.registrarNuevo(guardado);
         log.info("Vehículo creado exitosamente con ID: {}", guardado.getId());
         return guardado;
     }
@@ -131,9 +176,9 @@ public class VehiculoService {
             throw new RecursoDuplicadoException("Ya existe un vehículo con la placa: " + placaNormalizada);
         }
 
-        Modelo modelo = modeloRepository.findById(dto.modeloId())
+        Modelo modelo = catalogoCache.buscarModelo(dto.modeloId())
                 .orElseThrow(() -> new ModeloNotFoundException(dto.modeloId()));
-        TipoVehiculo tipo = tipoVehiculoRepository.findById(dto.tipoVehiculoId())
+        TipoVehiculo tipo = catalogoCache.buscarTipo(dto.tipoVehiculoId())
                 .orElseThrow(() -> new TipoVehiculoNotFoundException(dto.tipoVehiculoId()));
 
         existente.setPlaca(placaNormalizada);
@@ -144,6 +189,9 @@ public class VehiculoService {
         existente.setDescripcion(StringUtils.trim(dto.descripcion()));
 
         Vehiculo actualizado = vehiculoRepository.save(existente);
+        indiceFlota.registrar(actualizado);
+        eventoVehiculoService.registrar(actualizado, TipoEventoVehiculo.ACTUALIZADO);
+        pronosticoMantenimiento.recalcular(id);
         log.info("Vehículo actualizado exitosamente: {}", id);
         return actualizado;
     }
@@ -155,6 +203,9 @@ public class VehiculoService {
                 .orElseThrow(() -> new VehiculoNotFoundException(id));
         existente.setActivo(false);
         vehiculoRepository.save(existente);
+        indiceFlota.registrar(existente);
+        eventoVehiculoService.registrar(existente, TipoEventoVehiculo.DESACTIVADO);
+        pronosticoMantenimiento.quitar(id);
         log.debug("Vehículo marcado como inactivo: {}", id);
     }
 
@@ -172,6 +223,9 @@ public class VehiculoService {
 
         vehiculo.setActivo(true);
         vehiculoRepository.save(vehiculo);
+        indiceFlota.registrar(vehiculo);
+        eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.RESTAURADO);
+        pronosticoMantenimiento.recalcular(id);
 
         log.info("Vehículo restaurado correctamente: {}", id);
     }
@@ -182,18 +236,19 @@ public class VehiculoService {
                 .orElseThrow(() -> new VehiculoNotFoundException(id));
 
         vehiculoRepository.deleteById(id);
+        indiceFlota.quitar(id);
+        eventoVehiculoService.registrar(vehiculo, TipoEventoVehiculo.ELIMINADO);
+        pronosticoMantenimiento.quitar(id);
     }
 
     @Transactional
     public Vehiculo actualizarEstado(UUID id, EstadoVehiculo estado) {
         log.info("Actualizando estado del vehículo {} a: {}", id, estado);
-        Vehiculo vehiculo = obtenerPorId(id);
-
-        // Validar transiciones de estado válidas
-        validarTransicionEstado(vehiculo.getEstado(), estado);
-
-        vehiculo.setEstado(estado);
-        Vehiculo actualizado = vehiculoRepository.save(vehiculo);
+        // Validar transiciones de estado válidas contra el estado vigente al actualizar
+        Vehiculo actualizado = transicionEstadoVehiculo.cambiar(id, estado,
+                estadoActual -> validarTransicionEstado(estadoActual, estado));
+        indiceFlota.registrar(actualizado);
+        eventoVehiculoService.registrar(actualizado, TipoEventoVehiculo.ESTADO_CAMBIADO);
         log.info("Estado del vehículo {} actualizado a: {}", id, estado);
         return actualizado;
     }
@@ -204,32 +259,62 @@ public class VehiculoService {
             throw new IllegalStateException("No se puede poner en mantenimiento un vehículo alquilado");
         }
 
+        // Un vehículo alquilado no puede alquilarse de nuevo (dos contratos simultáneos)
+        if (estadoActual == EstadoVehiculo.ALQUILADO && nuevoEstado == EstadoVehiculo.ALQUILADO) {
+            throw new IllegalStateException("El vehículo ya se encuentra alquilado");
+        }
+
         // Un vehículo en mantenimiento no puede ser alquilado directamente
         if (estadoActual == EstadoVehiculo.EN_MANTENIMIENTO && nuevoEstado == EstadoVehiculo.ALQUILADO) {
             throw new IllegalStateException("No se puede alquilar un vehículo en mantenimiento");
         }
     }
 
-    @Transactional
     public boolean verificarDisponibilidad(UUID id) {
-        Vehiculo vehiculo = obtenerPorId(id);
-        return vehiculo.getEstado() == EstadoVehiculo.DISPONIBLE;
+        EstadoFlotaDto vehiculo = indiceFlota.obtener(id)
+                .orElseThrow(() -> new VehiculoNotFoundException(id));
+        return vehiculo.estado() == EstadoVehiculo.DISPONIBLE;
     }
 
-    @Transactional
+    public EstadoFlotaDto obtenerEstadoFlota(UUID id) {
+        return indiceFlota.obtener(id)
+                .orElseThrow(() -> new VehiculoNotFoundException(id));
+    }
+
+    public ResumenFlotaDto obtenerResumenFlota() {
+        Map<EstadoVehiculo, Integer> porEstado = new EnumMap<>(EstadoVehiculo.class);
+        int total = 0;
+        for (EstadoVehiculo estado : EstadoVehiculo.values()) {
+            int cantidad = indiceFlota.contar(estado);
+            porEstado.put(estado, cantidad);
+            total += cantidad;
+        }
+        return new ResumenFlotaDto(porEstado, total);
+    }
+
+    // Ids de vehículos activos disponibles, opcionalmente de un tipo y/o marca
+    public List<UUID> listarIdsDisponibles(Integer tipoId, Long marcaId) {
+        return indiceFlota.idsPorEstado(EstadoVehiculo.DISPONIBLE).stream()
+                .map(indiceFlota::obtener)
+                .flatMap(Optional::stream)
+                .filter(v -> tipoId == null || tipoId.equals(v.tipoId()))
+                .filter(v -> marcaId == null || marcaId.equals(v.marcaId()))
+                .map(EstadoFlotaDto::id)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
     public List<VehiculoResponseDto> listarTodosParaReportes() {
         log.debug("Obteniendo todos los vehículos para reportes");
-        List<Vehiculo> vehiculos = vehiculoRepository.findAll();
-        return vehiculos.stream()
-                .map(vehiculo -> new VehiculoResponseDto(
-                        vehiculo.getId(),
-                        vehiculo.getPlaca(),
-                        vehiculo.getModelo().getMarca().getNombre(),
-                        vehiculo.getModelo().getNombre(),
-                        vehiculo.getTipoVehiculo().getNombre(),
-                        vehiculo.getEstado().name(),
-                        vehiculo.isActivo()
-                ))
-                .collect(Collectors.toList());
+        return vehiculoRepository.findAllParaReportes();
+    }
+
+    // Recorre la flota fila a fila sin materializar la lista completa
+    @Transactional(readOnly = true)
+    public void recorrerTodosParaReportes(Consumer<VehiculoResponseDto> consumidor) {
+        log.debug("Recorriendo todos los vehículos para reportes");
+        try (Stream<VehiculoResponseDto> vehiculos = vehiculoRepository.streamAllParaReportes()) {
+            vehiculos.forEach(consumidor);
+        }
     }
 }
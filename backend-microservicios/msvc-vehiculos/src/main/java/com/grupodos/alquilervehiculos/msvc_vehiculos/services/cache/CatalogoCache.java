@@ -0,0 +1,184 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Marca;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Modelo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.TipoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.MarcaRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.ModeloRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.TipoVehiculoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo completo de marcas, modelos y tipos de vehículo en memoria. Se carga la primera vez
+ * que se consulta, se invalida al confirmar cualquier alta o modificación hecha en esta instancia
+ * y, para ver los cambios hechos en otras réplicas, se vuelve a cargar al vencer su vigencia o
+ * cuando se busca un modelo o tipo que no tiene pero sí existe en la base. El ETag se calcula
+ * del contenido, así todas las réplicas con el mismo catálogo publican el mismo.
+ */
+@Component
+@Slf4j
+public class CatalogoCache {
+
+    private final MarcaRepository marcaRepository;
+    private final ModeloRepository modeloRepository;
+    private final TipoVehiculoRepository tipoVehiculoRepository;
+
+    private final long vigenciaNanos;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Catalogo catalogo;
+
+    public CatalogoCache(MarcaRepository marcaRepository, ModeloRepository modeloRepository,
+                         TipoVehiculoRepository tipoVehiculoRepository,
+                         @Value("${vehiculos.catalogo.vigencia:PT5M}") Duration vigencia) {
+        this.marcaRepository = marcaRepository;
+        this.modeloRepository = modeloRepository;
+        this.tipoVehiculoRepository = tipoVehiculoRepository;
+        this.vigenciaNanos = vigencia.toNanos();
+    }
+
+    public List<Marca> marcas() {
+        return obtener().marcas();
+    }
+
+    public List<Modelo> modelos() {
+        return obtener().modelos();
+    }
+
+    public List<Modelo> modelosPorMarca(Long marcaId) {
+        return obtener().modelosPorMarca().getOrDefault(marcaId, List.of());
+    }
+
+    public List<TipoVehiculo> tipos() {
+        return obtener().tipos();
+    }
+
+    // Si no está en memoria puede haberse creado en otra réplica: se consulta la base y, si
+    // existe, se descarta el catálogo para que la siguiente lectura lo incluya
+    public Optional<Modelo> buscarModelo(Long id) {
+        Modelo modelo = obtener().modelosPorId().get(id);
+        if (modelo != null || id == null) {
+            return Optional.ofNullable(modelo);
+        }
+        Optional<Modelo> encontrado = modeloRepository.findById(id);
+        encontrado.ifPresent(nuevo -> descartar());
+        return encontrado;
+    }
+
+    public Optional<TipoVehiculo> buscarTipo(Long id) {
+        TipoVehiculo tipo = obtener().tiposPorId().get(id);
+        if (tipo != null || id == null) {
+            return Optional.ofNullable(tipo);
+        }
+        Optional<TipoVehiculo> encontrado = tipoVehiculoRepository.findById(id.intValue());
+        encontrado.ifPresent(nuevo -> descartar());
+        return encontrado;
+    }
+
+    public String etag() {
+        return obtener().etag();
+    }
+
+    // Si hay una transacción en curso se invalida al confirmarla, para que otra lectura no
+    // recargue el catálogo antes de que el cambio sea visible
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar();
+                }
+            });
+        } else {
+            descartar();
+        }
+    }
+
+    private void descartar() {
+        version.incrementAndGet();
+        catalogo = null;
+        log.debug("Catálogo de vehículos invalidado");
+    }
+
+    private Catalogo obtener() {
+        Catalogo actual = catalogo;
+        if (vigente(actual)) {
+            return actual;
+        }
+
+        synchronized (this) {
+            if (vigente(catalogo)) {
+                return catalogo;
+            }
+
+            long versionCarga = version.get();
+            Catalogo cargado = cargar();
+            // Si se invalidó durante la carga, se sirve lo leído pero no se conserva
+            if (version.get() == versionCarga) {
+                catalogo = cargado;
+            }
+            return cargado;
+        }
+    }
+
+    private boolean vigente(Catalogo actual) {
+        return actual != null && System.nanoTime() - actual.cargadoEn() < vigenciaNanos;
+    }
+
+    private Catalogo cargar() {
+        List<Marca> marcas = List.copyOf(marcaRepository.findAll());
+        List<Modelo> modelos = List.copyOf(modeloRepository.findAllConMarca());
+        List<TipoVehiculo> tipos = List.copyOf(tipoVehiculoRepository.findAll());
+
+        Map<Long, Modelo> modelosPorId = modelos.stream()
+                .collect(Collectors.toUnmodifiableMap(Modelo::getId, modelo -> modelo));
+        Map<Long, List<Modelo>> modelosPorMarca = modelos.stream()
+                .collect(Collectors.groupingBy(modelo -> modelo.getMarca().getId(),
+                        Collectors.toUnmodifiableList()));
+        Map<Long, TipoVehiculo> tiposPorId = tipos.stream()
+                .collect(Collectors.toUnmodifiableMap(tipo -> tipo.getId().longValue(), tipo -> tipo));
+
+        log.debug("Catálogo cargado: {} marcas, {} modelos, {} tipos", marcas.size(), modelos.size(), tipos.size());
+        return new Catalogo(System.nanoTime(), etag(marcas, modelos, tipos), marcas, modelos, tipos,
+                modelosPorId, Map.copyOf(modelosPorMarca), tiposPorId);
+    }
+
+    // Huella de los campos que publican los endpoints, ordenados por id para no depender del orden de lectura
+    private static String etag(List<Marca> marcas, List<Modelo> modelos, List<TipoVehiculo> tipos) {
+        StringBuilder contenido = new StringBuilder();
+        marcas.stream()
+                .sorted(Comparator.comparing(Marca::getId))
+                .forEach(marca -> contenido.append("M").append(marca.getId()).append('|')
+                        .append(marca.getNombre()).append('\n'));
+        modelos.stream()
+                .sorted(Comparator.comparing(Modelo::getId))
+                .forEach(modelo -> contenido.append("O").append(modelo.getId()).append('|')
+                        .append(modelo.getNombre()).append('|').append(modelo.getMarca().getId()).append('\n'));
+        tipos.stream()
+                .sorted(Comparator.comparing(TipoVehiculo::getId))
+                .forEach(tipo -> contenido.append("T").append(tipo.getId()).append('|')
+                        .append(tipo.getNombre()).append('|').append(tipo.getDescripcion()).append('\n'));
+        return "\"catalogo-" + DigestUtils.md5DigestAsHex(contenido.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private record Catalogo(
+            long cargadoEn,
+            String etag,
+            List<Marca> marcas,
+            List<Modelo> modelos,
+            List<TipoVehiculo> tipos,
+            Map<Long, Modelo> modelosPorId,
+            Map<Long, List<Modelo>> modelosPorMarca,
+            Map<Long, TipoVehiculo> tiposPorId
+    ) {}
+}
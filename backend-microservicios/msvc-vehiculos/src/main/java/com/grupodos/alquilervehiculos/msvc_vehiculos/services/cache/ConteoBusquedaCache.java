@@ -0,0 +1,47 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services.cache;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.FiltroBusquedaVehiculos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Total de resultados por combinación de filtros de búsqueda. Recorrer páginas con el mismo
+ * filtro no vuelve a contar; el total puede quedar desfasado como mucho lo que dure la vigencia.
+ */
+@Component
+public class ConteoBusquedaCache {
+
+    private static final int MAXIMO_ENTRADAS = 500;
+
+    private final Map<FiltroBusquedaVehiculos, Entrada> entradas = new ConcurrentHashMap<>();
+    private final long vigenciaNanos;
+
+    public ConteoBusquedaCache(@Value("${vehiculos.busqueda.vigencia-conteo:PT30S}") Duration vigencia) {
+        this.vigenciaNanos = vigencia.toNanos();
+    }
+
+    public long obtener(FiltroBusquedaVehiculos filtro, LongSupplier conteo) {
+        long ahora = System.nanoTime();
+        Entrada entrada = entradas.get(filtro);
+        if (entrada != null && ahora - entrada.calculadoEn() < vigenciaNanos) {
+            return entrada.total();
+        }
+
+        long total = conteo.getAsLong();
+        if (entradas.size() >= MAXIMO_ENTRADAS) {
+            entradas.values().removeIf(vieja -> ahora - vieja.calculadoEn() >= vigenciaNanos);
+            if (entradas.size() >= MAXIMO_ENTRADAS) {
+                entradas.clear();
+            }
+        }
+        entradas.put(filtro, new Entrada(total, ahora));
+        return total;
+    }
+
+    private record Entrada(long total, long calculadoEn) {}
+}
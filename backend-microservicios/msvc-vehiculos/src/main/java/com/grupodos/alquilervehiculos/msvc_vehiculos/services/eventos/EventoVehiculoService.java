@@ -0,0 +1,193 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services.eventos;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EventoVehiculoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EventosVehiculoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.VehiculoEvento;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.TipoEventoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoEventoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de cambios de vehículos (tabla vehiculo_eventos) para que otros servicios mantengan
+ * réplicas locales leyendo solo lo nuevo desde la última secuencia vista.
+ *
+ * Los eventos de una transacción se acumulan y se insertan juntos justo antes de confirmarla,
+ * bajo un advisory lock de PostgreSQL que dura hasta el commit: así las secuencias se confirman
+ * en orden y un lector que ya vio la secuencia N nunca se salta una menor confirmada después.
+ * El lock se pide después de escribir los demás cambios de la transacción, cuando ya tiene
+ * todos sus bloqueos de fila, y se retiene solo lo que dura la inserción: un único lote JDBC que
+ * toma las secuencias con nextval en la misma sentencia, sin una ida y vuelta por evento. La
+ * lectura puede esperar (long-poll) a que haya
+ * eventos nuevos; los confirmados en esta instancia despiertan a los lectores al momento y los
+ * de otras réplicas se ven, como tarde, al vencer la espera.
+ */
+@Service
+@Slf4j
+public class EventoVehiculoService {
+
+    public static final int MAXIMO_EVENTOS = 1000;
+    public static final Duration MAXIMA_ESPERA = Duration.ofSeconds(25);
+
+    private static final long CLAVE_BLOQUEO = 0x76656869L;
+
+    // Las secuencias se asignan en el orden del lote, bajo el advisory lock
+    private static final String INSERTAR_EVENTO = """
+            INSERT INTO vehiculo_eventos (seq, id_vehiculo, tipo, estado, activo, ocurrido_en)
+            VALUES (nextval('vehiculo_eventos_seq'), ?, ?, ?, ?, ?)
+            """;
+
+    private final VehiculoEventoRepository vehiculoEventoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Queue<CompletableFuture<Void>> esperas = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ultimaConfirmada = new AtomicLong();
+    private final ExecutorService lectores = Executors.newFixedThreadPool(4, tarea -> {
+        Thread hilo = new Thread(tarea, "vehiculos-eventos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public EventoVehiculoService(VehiculoEventoRepository vehiculoEventoRepository, JdbcTemplate jdbcTemplate) {
+        this.vehiculoEventoRepository = vehiculoEventoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Debe llamarse dentro de la transacción que modifica el vehículo; se inserta al confirmarla
+    public void registrar(Vehiculo vehiculo, TipoEventoVehiculo tipo) {
+        VehiculoEvento evento = new VehiculoEvento();
+        evento.setVehiculoId(vehiculo.getId());
+        evento.setTipo(tipo);
+        evento.setEstado(vehiculo.getEstado());
+        evento.setActivo(vehiculo.isActivo());
+        evento.setOcurridoEn(OffsetDateTime.now());
+        pendientes().add(evento);
+    }
+
+    public CompletableFuture<EventosVehiculoDto> leer(long desde, int limite, Duration espera) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("La secuencia inicial no puede ser negativa");
+        }
+        if (limite < 1 || limite > MAXIMO_EVENTOS) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAXIMO_EVENTOS);
+        }
+        if (espera.isNegative() || espera.compareTo(MAXIMA_ESPERA) > 0) {
+            throw new IllegalArgumentException("La espera debe estar entre 0 y " + MAXIMA_ESPERA.toSeconds() + " segundos");
+        }
+
+        EventosVehiculoDto inmediatos = consultar(desde, limite);
+        if (!inmediatos.eventos().isEmpty() || espera.isZero()) {
+            return CompletableFuture.completedFuture(inmediatos);
+        }
+
+        CompletableFuture<Void> aviso = new CompletableFuture<>();
+        esperas.add(aviso);
+        // Un evento confirmado entre la consulta y el registro de la espera no debe perderse
+        if (ultimaConfirmada.get() > desde) {
+            aviso.complete(null);
+        }
+
+        return aviso.completeOnTimeout(null, espera.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ignorado -> {
+                    esperas.remove(aviso);
+                    return consultar(desde, limite);
+                }, lectores);
+    }
+
+    @PreDestroy
+    void detener() {
+        lectores.shutdownNow();
+    }
+
+    // Eventos de la transacción en curso; la primera vez registra su inserción antes del commit
+    @SuppressWarnings("unchecked")
+    private List<VehiculoEvento> pendientes() {
+        List<VehiculoEvento> pendientes = (List<VehiculoEvento>) TransactionSynchronizationManager.getResource(this);
+        if (pendientes != null) {
+            return pendientes;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los eventos de vehículo solo se registran dentro de una transacción");
+        }
+
+        List<VehiculoEvento> nuevos = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, nuevos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long ultimaSecuencia;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                ultimaSecuencia = insertar(nuevos);
+            }
+
+            @Override
+            public void afterCommit() {
+                ultimaConfirmada.accumulateAndGet(ultimaSecuencia, Math::max);
+                despertarLectores();
+            }
+
+            @Override
+            public void afterCompletion(int estado) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EventoVehiculoService.this);
+            }
+        });
+        return nuevos;
+    }
+
+    // Devuelve la última secuencia asignada al lote
+    private long insertar(List<VehiculoEvento> eventos) {
+        // Primero se escriben los cambios pendientes: los bloqueos de fila quedan tomados antes del
+        // advisory lock, que es siempre el último en pedirse y no puede formar un ciclo de espera
+        vehiculoEventoRepository.flush();
+        vehiculoEventoRepository.bloquearSecuencia(CLAVE_BLOQUEO);
+
+        // La conexión es la de la transacción JPA en curso: el lock y el lote van en la misma sesión
+        jdbcTemplate.batchUpdate(INSERTAR_EVENTO, eventos, eventos.size(),
+                (PreparedStatement sentencia, VehiculoEvento evento) -> {
+                    sentencia.setObject(1, evento.getVehiculoId());
+                    sentencia.setString(2, evento.getTipo().name());
+                    sentencia.setString(3, evento.getEstado().name());
+                    sentencia.setBoolean(4, evento.isActivo());
+                    sentencia.setObject(5, evento.getOcurridoEn());
+                });
+        Long ultima = jdbcTemplate.queryForObject("SELECT currval('vehiculo_eventos_seq')", Long.class);
+        return ultima != null ? ultima : 0L;
+    }
+
+    private void despertarLectores() {
+        CompletableFuture<Void> aviso;
+        while ((aviso = esperas.poll()) != null) {
+            aviso.complete(null);
+        }
+    }
+
+    private EventosVehiculoDto consultar(long desde, int limite) {
+        List<EventoVehiculoDto> eventos = vehiculoEventoRepository
+                .findBySeqGreaterThanOrderBySeqAsc(desde, Limit.of(limite)).stream()
+                .map(evento -> new EventoVehiculoDto(
+                        evento.getSeq(),
+                        evento.getVehiculoId(),
+                        evento.getTipo(),
+                        evento.getEstado(),
+                        evento.isActivo(),
+                        evento.getOcurridoEn()))
+                .toList();
+
+        long ultimo = eventos.isEmpty() ? desde : eventos.get(eventos.size() - 1).seq();
+        return new EventosVehiculoDto(eventos, ultimo);
+    }
+}
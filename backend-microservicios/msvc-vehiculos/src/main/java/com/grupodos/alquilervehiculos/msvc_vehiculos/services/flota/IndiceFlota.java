@@ -0,0 +1,190 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services.flota;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.EstadoFlotaDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.enums.EstadoVehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado de cada vehículo en memoria: id → (estado, activo, tipo, marca) y, por estado, el
+ * conjunto de ids de vehículos activos. Se carga completo la primera vez que se consulta y
+ * después se mantiene con cada cambio confirmado en esta instancia, así que las consultas de
+ * disponibilidad no van a la base. Los cambios se aplican tras el commit y de uno en uno; las
+ * lecturas no se bloquean. Cada entrada lleva la versión del vehículo y nunca se reemplaza por
+ * una anterior, aunque los commits lleguen desordenados.
+ *
+ * Los cambios hechos en otras réplicas se recogen al resincronizar periódicamente contra la base;
+ * un vehículo que aún no está en el índice se busca en la base al consultarlo. Las bajas dejan una
+ * marca para que una lectura de la base iniciada antes de la baja no vuelva a agregar el vehículo.
+ */
+@Component
+@Slf4j
+public class IndiceFlota {
+
+    private final VehiculoRepository vehiculoRepository;
+
+    private final Map<UUID, EstadoFlotaDto> porId = new ConcurrentHashMap<>();
+    private final Map<EstadoVehiculo, Set<UUID>> porEstado = new EnumMap<>(EstadoVehiculo.class);
+    private volatile boolean cargado;
+
+    // Vehículos eliminados (id → System.nanoTime() de la baja); las bajas son definitivas, así que
+    // basta con conservar la marca mientras pueda haber una lectura anterior en curso
+    private final Map<UUID, Long> eliminados = new ConcurrentHashMap<>();
+    private long inicioResincronizacionAnterior = System.nanoTime();
+
+    public IndiceFlota(VehiculoRepository vehiculoRepository) {
+        this.vehiculoRepository = vehiculoRepository;
+        for (EstadoVehiculo estado : EstadoVehiculo.values()) {
+            porEstado.put(estado, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public Optional<EstadoFlotaDto> obtener(UUID id) {
+        cargarSiHaceFalta();
+        EstadoFlotaDto entrada = porId.get(id);
+        if (entrada != null) {
+            return Optional.of(entrada);
+        }
+
+        // Puede haberse creado en otra réplica después de la última resincronización
+        Optional<EstadoFlotaDto> enBase = vehiculoRepository.findEstadoFlotaById(id);
+        if (enBase.isPresent() && !aplicarLeido(enBase.get())) {
+            return Optional.empty(); // Eliminado mientras se leía
+        }
+        return enBase;
+    }
+
+    // Ids de vehículos activos en el estado dado
+    public Set<UUID> idsPorEstado(EstadoVehiculo estado) {
+        cargarSiHaceFalta();
+        return Collections.unmodifiableSet(porEstado.get(estado));
+    }
+
+    public int contar(EstadoVehiculo estado) {
+        cargarSiHaceFalta();
+        return porEstado.get(estado).size();
+    }
+
+    // La entrada se arma tras el commit, cuando el vehículo ya tiene la versión con la que se guardó
+    public void registrar(Vehiculo vehiculo) {
+        despuesDelCommit(() -> aplicar(vehiculo.getId(), new EstadoFlotaDto(
+                vehiculo.getId(),
+                vehiculo.getEstado(),
+                vehiculo.isActivo(),
+                vehiculo.getTipoVehiculo().getId(),
+                vehiculo.getModelo().getMarca().getId(),
+                vehiculo.getVersion())));
+    }
+
+    public void quitar(UUID id) {
+        despuesDelCommit(() -> aplicar(id, null));
+    }
+
+    private void despuesDelCommit(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    // Vuelve a leer la flota de la base para recoger los cambios confirmados en otras réplicas
+    @Scheduled(fixedDelayString = "${vehiculos.flota.resincronizacion:PT1M}",
+            initialDelayString = "${vehiculos.flota.resincronizacion:PT1M}")
+    public void resincronizar() {
+        if (!cargado) {
+            return;
+        }
+
+        // Solo se quitan los que ya estaban antes de leer: uno registrado durante la lectura no
+        // aparece en ella pero no fue eliminado
+        long inicio = System.nanoTime();
+        Set<UUID> previos = new HashSet<>(porId.keySet());
+        List<EstadoFlotaDto> vehiculos = vehiculoRepository.findAllEstadoFlota();
+        synchronized (this) {
+            for (EstadoFlotaDto vehiculo : vehiculos) {
+                aplicarLeido(vehiculo);
+                previos.remove(vehiculo.id());
+            }
+            previos.forEach(id -> aplicar(id, null));
+
+            // Ninguna lectura en curso empezó antes de la resincronización anterior
+            long limite = inicioResincronizacionAnterior;
+            eliminados.values().removeIf(eliminadoEn -> eliminadoEn - limite < 0);
+            inicioResincronizacionAnterior = inicio;
+        }
+        log.debug("Índice de flota resincronizado: {} vehículos, {} eliminados en otras réplicas",
+                vehiculos.size(), previos.size());
+    }
+
+    // Una fila leída de la base no se aplica si el vehículo se eliminó mientras tanto
+    private synchronized boolean aplicarLeido(EstadoFlotaDto vehiculo) {
+        if (eliminados.containsKey(vehiculo.id())) {
+            return false;
+        }
+        aplicar(vehiculo.id(), vehiculo);
+        return true;
+    }
+
+    private synchronized void aplicar(UUID id, EstadoFlotaDto entrada) {
+        if (entrada == null) {
+            eliminados.put(id, System.nanoTime());
+        }
+        // Antes de la carga no hay nada que mantener: la carga leerá el cambio ya confirmado
+        if (!cargado) {
+            return;
+        }
+
+        EstadoFlotaDto anterior = porId.get(id);
+        if (anterior != null && entrada != null && anterior.version() > entrada.version()) {
+            return;
+        }
+
+        if (entrada == null) {
+            porId.remove(id);
+        } else {
+            porId.put(id, entrada);
+        }
+        if (anterior != null) {
+            porEstado.get(anterior.estado()).remove(id);
+        }
+        if (entrada != null && entrada.activo()) {
+            porEstado.get(entrada.estado()).add(id);
+        }
+    }
+
+    private void cargarSiHaceFalta() {
+        if (cargado) {
+            return;
+        }
+
+        synchronized (this) {
+            if (cargado) {
+                return;
+            }
+
+            List<EstadoFlotaDto> vehiculos = vehiculoRepository.findAllEstadoFlota();
+            for (EstadoFlotaDto vehiculo : vehiculos) {
+                porId.put(vehiculo.id(), vehiculo);
+                if (vehiculo.activo()) {
+                    porEstado.get(vehiculo.estado()).add(vehiculo.id());
+                }
+            }
+            cargado = true;
+            log.info("Índice de flota cargado con {} vehículos", vehiculos.size());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.grupodos.alquilervehiculos.msvc_vehiculos.services.pronostico;
+
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.HistorialMantenimientoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.PronosticoMantenimientoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.dto.VehiculoPronosticoDto;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.entities.Vehiculo;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.MantenimientoRepository;
+import com.grupodos.alquilervehiculos.msvc_vehiculos.repositories.VehiculoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Próximo mantenimiento estimado de cada vehículo activo, ordenado por fecha en una cola de
+ * prioridad en memoria. La estimación es la última fecha de mantenimiento más el intervalo
+ * promedio entre los inicios de sus mantenimientos anteriores (o el intervalo por defecto si
+ * tiene menos de dos). Los vehículos con un mantenimiento en curso no se pronostican.
+ *
+ * La cola se construye al arrancar y se reconstruye completa de madrugada; durante el día cada
+ * alta, cambio o baja recalcula solo el vehículo afectado, así que las consultas no recorren el
+ * historial. La reconstrucción lee la base fuera del monitor y solo reemplaza la cola al final.
+ */
+@Component
+@Slf4j
+public class PronosticoMantenimiento {
+
+    private static final Comparator<PronosticoMantenimientoDto> POR_FECHA = Comparator
+            .comparing(PronosticoMantenimientoDto::fechaEstimada)
+            .thenComparing(PronosticoMantenimientoDto::vehiculoId);
+
+    private final MantenimientoRepository mantenimientoRepository;
+    private final VehiculoRepository vehiculoRepository;
+    private final long intervaloPorDefectoDias;
+
+    private NavigableSet<PronosticoMantenimientoDto> cola = new TreeSet<>(POR_FECHA);
+    private Map<UUID, PronosticoMantenimientoDto> porVehiculo = new HashMap<>();
+    private boolean cargado;
+
+    // Cambios confirmados mientras se reconstruye; se aplican sobre la cola nueva al reemplazarla
+    private Map<UUID, PronosticoMantenimientoDto> cambiosDuranteCarga;
+
+    // Serializa la carga inicial y la programada sin bloquear las consultas
+    private final Object reconstruccion = new Object();
+
+    public PronosticoMantenimiento(MantenimientoRepository mantenimientoRepository,
+                                   VehiculoRepository vehiculoRepository,
+                                   @Value("${vehiculos.pronostico.intervalo-por-defecto-dias:180}") long intervaloPorDefectoDias) {
+        this.mantenimientoRepository = mantenimientoRepository;
+        this.vehiculoRepository = vehiculoRepository;
+        this.intervaloPorDefectoDias = intervaloPorDefectoDias;
+    }
+
+    // Los primeros vehículos por fecha estimada, hasta la fecha límite si se indica.
+    // Nunca construye la cola: hasta que termina la carga inicial devuelve una lista vacía
+    public synchronized List<PronosticoMantenimientoDto> proximos(LocalDate hasta, int limite) {
+        if (!cargado) {
+            log.warn("Pronóstico de mantenimientos consultado antes de la carga inicial");
+            return List.of();
+        }
+        return cola.stream()
+                .takeWhile(pronostico -> hasta == null || !pronostico.fechaEstimada().isAfter(hasta))
+                .limit(limite)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            // La reconstrucción programada vuelve a intentarlo
+            log.error("Error en la carga inicial del pronóstico de mantenimientos: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${vehiculos.pronostico.cron:0 30 3 * * *}")
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            cargar();
+        }
+    }
+
+    private void cargar() {
+        long inicio = System.currentTimeMillis();
+        synchronized (this) {
+            cambiosDuranteCarga = new HashMap<>();
+        }
+
+        NavigableSet<PronosticoMantenimientoDto> nuevaCola = new TreeSet<>(POR_FECHA);
+        Map<UUID, PronosticoMantenimientoDto> nuevosPorVehiculo = new HashMap<>();
+        try {
+            Map<UUID, List<HistorialMantenimientoDto>> historiales = mantenimientoRepository.findAllHistorial().stream()
+                    .collect(Collectors.groupingBy(HistorialMantenimientoDto::vehiculoId));
+            for (VehiculoPronosticoDto vehiculo : vehiculoRepository.findAllActivosParaPronostico()) {
+                guardar(nuevaCola, nuevosPorVehiculo, vehiculo.id(),
+                        calcular(vehiculo, historiales.getOrDefault(vehiculo.id(), List.of())));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                cambiosDuranteCarga = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            cambiosDuranteCarga.forEach((vehiculoId, pronostico) ->
+                    guardar(nuevaCola, nuevosPorVehiculo, vehiculoId, pronostico));
+            cambiosDuranteCarga = null;
+            cola = nuevaCola;
+            porVehiculo = nuevosPorVehiculo;
+            cargado = true;
+        }
+        log.info("Pronóstico de mantenimientos reconstruido: {} vehículos en {} ms",
+                nuevaCola.size(), System.currentTimeMillis() - inicio);
+    }
+
+    // Vehículo sin historial (alta o importación): no hace falta consultar la base
+    public void registrarNuevo(Vehiculo vehiculo) {
+        VehiculoPronosticoDto base = new VehiculoPronosticoDto(vehiculo.getId(), vehiculo.getPlaca(), vehiculo.getCreadoEn());
+        despuesDelCommit(() -> actualizar(vehiculo.getId(), calcular(base, List.of())));
+    }
+
+    // Tras un cambio en los mantenimientos, en la actividad o en la placa del vehículo
+    public void recalcular(UUID vehiculoId) {
+        despuesDelCommit(() -> {
+            Optional<VehiculoPronosticoDto> vehiculo = vehiculoRepository.findActivoParaPronostico(vehiculoId);
+            PronosticoMantenimientoDto pronostico = vehiculo
+                    .map(base -> calcular(base, mantenimientoRepository.findHistorial(vehiculoId)))
+                    .orElse(null);
+            actualizar(vehiculoId, pronostico);
+        });
+    }
+
+    public void quitar(UUID vehiculoId) {
+        despuesDelCommit(() -> actualizar(vehiculoId, null));
+    }
+
+    private PronosticoMantenimientoDto calcular(VehiculoPronosticoDto vehiculo, List<HistorialMantenimientoDto> historial) {
+        if (historial.stream().anyMatch(mantenimiento -> !mantenimiento.finalizado())) {
+            return null;
+        }
+
+        List<LocalDate> inicios = historial.stream()
+                .map(HistorialMantenimientoDto::fechaInicio)
+                .sorted()
+                .toList();
+        long intervalo = inicios.size() < 2
+                ? intervaloPorDefectoDias
+                : Math.max(1, ChronoUnit.DAYS.between(inicios.get(0), inicios.get(inicios.size() - 1)) / (inicios.size() - 1));
+
+        LocalDate ultimo = historial.stream()
+                .map(mantenimiento -> mantenimiento.fechaFin() != null ? mantenimiento.fechaFin() : mantenimiento.fechaInicio())
+                .max(Comparator.naturalOrder())
+                .orElseGet(() -> vehiculo.creadoEn() != null ? vehiculo.creadoEn().toLocalDate() : LocalDate.now());
+
+        return new PronosticoMantenimientoDto(vehiculo.id(), vehiculo.placa(), ultimo, intervalo,
+                ultimo.plusDays(intervalo), historial.size());
+    }
+
+    private synchronized void actualizar(UUID vehiculoId, PronosticoMantenimientoDto pronostico) {
+        if (cambiosDuranteCarga != null) {
+            cambiosDuranteCarga.put(vehiculoId, pronostico);
+        }
+        // Sin carga previa no hay cola que mantener; la reconstrucción en curso recoge el cambio
+        if (cargado) {
+            guardar(cola, porVehiculo, vehiculoId, pronostico);
+        }
+    }
+
+    private static void guardar(NavigableSet<PronosticoMantenimientoDto> cola,
+                                Map<UUID, PronosticoMantenimientoDto> porVehiculo,
+                                UUID vehiculoId, PronosticoMantenimientoDto pronostico) {
+        PronosticoMantenimientoDto anterior = pronostico == null
+                ? porVehiculo.remove(vehiculoId)
+                : porVehiculo.put(vehiculoId, pronostico);
+        if (anterior != null) {
+            cola.remove(anterior);
+        }
+        if (pronostico != null) {
+            cola.add(pronostico);
+        }
+    }
+
+    private void despuesDelCommit(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+}